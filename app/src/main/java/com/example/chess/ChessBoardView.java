@@ -6,8 +6,11 @@ import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Path;
 import android.os.Handler;
+import android.os.Trace;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.View;
 import android.animation.ValueAnimator;
@@ -15,19 +18,42 @@ import android.widget.ImageView;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.chess.engine.Analyzer;
+import com.example.chess.engine.BackgroundWorker;
+import com.example.chess.engine.CancellationToken;
+import com.example.chess.engine.ClassicEvaluator;
+import com.example.chess.engine.MateSolver;
+import com.example.chess.engine.Precomputer;
+import com.example.chess.engine.SearchLimits;
+import com.example.chess.explorer.MoveStats;
+import com.example.chess.explorer.OpeningIndex;
+import com.example.chess.metrics.Metrics;
+import com.example.chess.metrics.MetricsRegistry;
+
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
-public class ChessBoardView extends View implements ChessGame.OnPawnPromotionListener{
+public class ChessBoardView extends View {
     private static final int BOARD_SIZE = 8;
+    private static final long AI_NODES = 200_000;
+    private static final int REPLY_CANDIDATES = 4;
+    private static final int REPLY_CACHE_SIZE = 256;
+    private static final int MATE_TABLE_MB = 8;
+    private static final long MATE_NODES = 2_000_000;
+    private static final int EXPLORER_ARROWS = 3;
     private Paint paint;
     private int cellSize;
     private ChessGame game;
     private Map<String, Bitmap> pieceBitmaps;
     private int selectedRow = -1, selectedCol = -1;
     private List<int[]> validMoves = new ArrayList<>();
+    private List<int[]> hintMoves = new ArrayList<>(); // valid moves that don't leave the king in check
+    private int promotionFromRow = -1, promotionFromCol = -1;
 
     private ImageView backgroundImage;
     private ValueAnimator fadeAnimator;
@@ -37,11 +63,39 @@ public class ChessBoardView extends View implements ChessGame.OnPawnPromotionLis
     private boolean increasing = true;
     private Handler handler = new Handler();
 
+    // Side the engine plays ("white" or "black"), or null when two players share the board
+    private String aiColor;
+    private final Precomputer precomputer;
+
+    // Live analysis: results arrive on the analysis thread and are taken over once per frame
+    private Analyzer analyzer;
+    private volatile Analyzer.Analysis pendingAnalysis;
+    private Analyzer.Analysis analysis;
+    private final AtomicBoolean analysisFrameScheduled = new AtomicBoolean();
+    private final Choreographer.FrameCallback analysisFrame = frameTimeNanos -> {
+        analysisFrameScheduled.set(false);
+        analysis = pendingAnalysis;
+        invalidate();
+    };
+    private final Runnable scheduleAnalysisFrame = () -> Choreographer.getInstance().postFrameCallback(analysisFrame);
+    private final Paint analysisPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path arrowPath = new Path();
+
+    // Opening explorer: moves played from the current position in the indexed games
+    private OpeningIndex openingIndex;
+    private List<MoveStats> explorerMoves = Collections.emptyList();
+
+    // Mate finder, created on first use; a new position abandons the running query
+    private BackgroundWorker mateWorker;
+    private MateSolver mateSolver;
+
     int lightColor = Color.parseColor("#E8EDF9");
     int darkColor = Color.parseColor("#B7C0D8");
     int lightColorActive = Color.parseColor("#b1a6fc");
     int darkColorActive = Color.parseColor("#9890ec");
     int hintColor = Color.parseColor("#b0a3f2");
+    int arrowColor = Color.parseColor("#3c8c5a");
+    int explorerColor = Color.parseColor("#3a6fc4");
 
     public ChessBoardView(Context context, AttributeSet attrs) {
         super(context, attrs);
@@ -50,7 +104,98 @@ public class ChessBoardView extends View implements ChessGame.OnPawnPromotionLis
         pieceBitmaps = new HashMap<>();
         loadPieceImages();
         startPulseAnimation();
-        game.setOnPawnPromotionListener(this);
+
+        SearchLimits aiLimits = new SearchLimits();
+        aiLimits.nodes = AI_NODES;
+        precomputer = new Precomputer(new ClassicEvaluator(), aiLimits, REPLY_CANDIDATES, REPLY_CACHE_SIZE);
+        precomputer.update(game.getSnapshot(), false);
+    }
+
+    /** Lets the engine play {@code color} ("white" or "black"), or nobody if null. */
+    public void setAiColor(String color) {
+        aiColor = color;
+        onPositionChanged();
+        invalidate();
+    }
+
+    /**
+     * Shows the engine's best {@code lines} moves as arrows, with an evaluation bar beside the
+     * board, while it analyzes in the background on all but one core. 0 turns analysis off.
+     */
+    public void setAnalysisLines(int lines) {
+        if (analyzer != null) analyzer.shutdown();
+        analyzer = null;
+        analysis = null;
+        pendingAnalysis = null;
+        if (lines > 0) {
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            analyzer = new Analyzer(new ClassicEvaluator(), 32, threads, lines, this::onAnalysis);
+            analyzer.analyze(game.getSnapshot());
+        }
+        invalidate();
+    }
+
+    /**
+     * Shows the most played moves of {@code index} for each position as arrows, thicker for more
+     * popular moves, or nothing if null. The index is looked up on the UI thread; it stays open.
+     */
+    public void setOpeningIndex(OpeningIndex index) {
+        openingIndex = index;
+        explorerMoves = index != null ? index.lookup(game.getHash()) : Collections.<MoveStats>emptyList();
+        invalidate();
+    }
+
+    /** Moves played from the current position in the opening index, most played first. */
+    public List<MoveStats> getExplorerMoves() {
+        return explorerMoves;
+    }
+
+    /**
+     * Looks for a forced mate in at most {@code maxMoves} by the side to move, in the background,
+     * and hands the result to {@code callback} on the UI thread. Nothing is reported if the
+     * position changes first.
+     */
+    public void findMate(int maxMoves, Consumer<MateSolver.Result> callback) {
+        if (mateWorker == null) {
+            mateSolver = new MateSolver(MATE_TABLE_MB);
+            mateSolver.setNodeLimit(MATE_NODES);
+            mateWorker = new BackgroundWorker("mate");
+        }
+        CancellationToken token = mateWorker.next();
+        mateSolver.stop();
+        Position position = game.getSnapshot();
+        mateWorker.execute(token, () -> {
+            MateSolver.Result result = mateSolver.solve(position.toGame(), maxMoves, token);
+            post(() -> {
+                if (!token.isCancelled() && game.getHash() == position.getHash()) callback.accept(result);
+            });
+        });
+    }
+
+    private void cancelMate() {
+        if (mateWorker == null) return;
+        mateWorker.cancel();
+        mateSolver.stop();
+    }
+
+    // Called on the analysis thread, as often as the search likes; redraws at most once a frame
+    private void onAnalysis(Analyzer.Analysis result) {
+        pendingAnalysis = result;
+        if (analysisFrameScheduled.compareAndSet(false, true)) {
+            post(scheduleAnalysisFrame);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        precomputer.shutdown();
+        if (analyzer != null) analyzer.shutdown();
+        if (mateWorker != null) {
+            mateWorker.shutdown();
+            mateSolver.stop();
+        }
+        Choreographer.getInstance().removeFrameCallback(analysisFrame);
     }
 
     private void loadPieceImages() {
@@ -90,6 +235,11 @@ public class ChessBoardView extends View implements ChessGame.OnPawnPromotionLis
         }, 50);
     }
 
+    /** The position on the board as of the last move; safe to read from background threads. */
+    public Position getPosition() {
+        return game.getSnapshot();
+    }
+
     public void setBackgroundImage(ImageView backgroundImage) {
         this.backgroundImage = backgroundImage;
     }
@@ -144,6 +294,18 @@ public class ChessBoardView extends View implements ChessGame.OnPawnPromotionLis
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
+        Metrics metrics = MetricsRegistry.get();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        Trace.beginSection("ChessBoardView.onDraw");
+        try {
+            drawBoard(canvas);
+        } finally {
+            Trace.endSection();
+            if (metrics.isEnabled()) metrics.record(Metrics.Timer.FRAME_DRAW, System.nanoTime() - start);
+        }
+    }
+
+    private void drawBoard(Canvas canvas) {
         int screenWidth = getWidth();
         int screenHeight = getHeight();
         int boardLength = Math.min(screenWidth, screenHeight) * 9 / 10;
@@ -153,14 +315,29 @@ public class ChessBoardView extends View implements ChessGame.OnPawnPromotionLis
 
 
         // Find kings' positions and check status
+        Trace.beginSection("ChessBoardView.status");
         int[] whiteKingPos = game.findKingPosition("white");
         int[] blackKingPos = game.findKingPosition("black");
-        boolean whiteInCheck = game.isKingInCheck("white");
-        boolean blackInCheck = game.isKingInCheck("black");
-        boolean whiteCheckmate = game.isCheckmate("white");
-        boolean blackCheckmate = game.isCheckmate("black");
-        boolean whiteStalemate = game.isStalemate("white");
-        boolean blackStalemate = game.isStalemate("black");
+        boolean whiteInCheck, blackInCheck, whiteCheckmate, blackCheckmate, whiteStalemate, blackStalemate;
+        MoveTable table = precomputer.getMoveTable(game.getHash());
+        if (table != null) {
+            // Precomputed: only the side to move can be in check, mated or stalemated
+            boolean white = game.isWhiteTurn();
+            whiteInCheck = white && table.isInCheck();
+            blackInCheck = !white && table.isInCheck();
+            whiteCheckmate = white && table.isCheckmate();
+            blackCheckmate = !white && table.isCheckmate();
+            whiteStalemate = white && table.isStalemate();
+            blackStalemate = !white && table.isStalemate();
+        } else {
+            whiteInCheck = game.isKingInCheck("white");
+            blackInCheck = game.isKingInCheck("black");
+            whiteCheckmate = game.isCheckmate("white");
+            blackCheckmate = game.isCheckmate("black");
+            whiteStalemate = game.isStalemate("white");
+            blackStalemate = game.isStalemate("black");
+        }
+        Trace.endSection();
 
         // Draw board
         for (int row = 0; row < BOARD_SIZE; row++) {
@@ -193,22 +370,8 @@ public class ChessBoardView extends View implements ChessGame.OnPawnPromotionLis
             }
         }
 
-        // **Filter Valid Moves: Only Show Moves That Don't Leave King in Check**
-        List<int[]> safeMoves = new ArrayList<>();
-        for (int[] move : validMoves) {
-            int fromRow = selectedRow;
-            int fromCol = selectedCol;
-            int toRow = move[0];
-            int toCol = move[1];
-
-            // Simulate move and check if the king is still in check
-            if (game.isMoveSafe(fromRow, fromCol, toRow, toCol)) {
-                safeMoves.add(move);
-            }
-        }
-
         // **Draw pulsating hint circles for filtered valid moves**
-        for (int[] move : safeMoves) {
+        for (int[] move : hintMoves) {
             int row = move[0];
             int col = move[1];
 
@@ -257,6 +420,15 @@ public class ChessBoardView extends View implements ChessGame.OnPawnPromotionLis
         }
 
 
+        if (!explorerMoves.isEmpty()) {
+            drawExplorer(canvas, startX, startY);
+        }
+
+        Analyzer.Analysis current = analysis;
+        if (current != null && current.hash == game.getHash()) {
+            drawAnalysis(canvas, current, startX, startY, boardLength);
+        }
+
         // **Display checkmate or stalemate message**
         if (whiteCheckmate || blackCheckmate || whiteStalemate || blackStalemate) {
             String message;
@@ -285,6 +457,67 @@ public class ChessBoardView extends View implements ChessGame.OnPawnPromotionLis
     }
 
 
+    private void drawAnalysis(Canvas canvas, Analyzer.Analysis current, int startX, int startY, int boardLength) {
+        // Arrows for the best moves, the best one boldest and on top
+        analysisPaint.setStyle(Paint.Style.FILL);
+        for (int i = current.lines.size() - 1; i >= 0; i--) {
+            int[] pv = current.lines.get(i).pv;
+            if (pv.length == 0) continue;
+            analysisPaint.setColor(arrowColor);
+            analysisPaint.setAlpha(i == 0 ? 200 : 110);
+            float width = cellSize * (i == 0 ? 0.16f : 0.10f);
+            drawArrow(canvas, startX, startY, Move.packedFrom(pv[0]), Move.packedTo(pv[0]), width);
+        }
+
+        // Evaluation bar left of the board: white's share grows from the bottom
+        Analyzer.Line best = current.lines.isEmpty() ? null : current.lines.get(0);
+        if (best == null) return;
+        float whiteShare = best.isMate() ? (best.score > 0 ? 1f : 0f)
+                : (float) (1 / (1 + Math.exp(-best.score / 400.0)));
+        float barWidth = Math.max(4, startX / 2f);
+        float left = (startX - barWidth) / 2f;
+        float split = startY + boardLength * (1 - whiteShare);
+        analysisPaint.setColor(Color.BLACK);
+        canvas.drawRect(left, startY, left + barWidth, split, analysisPaint);
+        analysisPaint.setColor(Color.WHITE);
+        canvas.drawRect(left, split, left + barWidth, startY + boardLength, analysisPaint);
+    }
+
+    private void drawExplorer(Canvas canvas, int startX, int startY) {
+        long total = 0;
+        for (MoveStats stats : explorerMoves) total += stats.getGames();
+        analysisPaint.setStyle(Paint.Style.FILL);
+        analysisPaint.setColor(explorerColor);
+        analysisPaint.setAlpha(150);
+        for (int i = Math.min(EXPLORER_ARROWS, explorerMoves.size()) - 1; i >= 0; i--) {
+            MoveStats stats = explorerMoves.get(i);
+            float share = (float) stats.getGames() / total;
+            drawArrow(canvas, startX, startY, Move.packedFrom(stats.move), Move.packedTo(stats.move),
+                    cellSize * (0.05f + 0.12f * share));
+        }
+    }
+
+    private void drawArrow(Canvas canvas, int startX, int startY, int from, int to, float width) {
+        float x1 = startX + (from & 7) * cellSize + cellSize / 2f, y1 = startY + (from >> 3) * cellSize + cellSize / 2f;
+        float x2 = startX + (to & 7) * cellSize + cellSize / 2f, y2 = startY + (to >> 3) * cellSize + cellSize / 2f;
+        float length = (float) Math.hypot(x2 - x1, y2 - y1);
+        if (length == 0) return;
+        float ux = (x2 - x1) / length, uy = (y2 - y1) / length;
+        float head = width * 2.5f;
+        float neckX = x2 - ux * head, neckY = y2 - uy * head;
+
+        analysisPaint.setStrokeWidth(width);
+        analysisPaint.setStrokeCap(Paint.Cap.ROUND);
+        canvas.drawLine(x1, y1, neckX, neckY, analysisPaint);
+
+        arrowPath.reset();
+        arrowPath.moveTo(x2, y2);
+        arrowPath.lineTo(neckX - uy * head * 0.6f, neckY + ux * head * 0.6f);
+        arrowPath.lineTo(neckX + uy * head * 0.6f, neckY - ux * head * 0.6f);
+        arrowPath.close();
+        canvas.drawPath(arrowPath, analysisPaint);
+    }
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         if (event.getAction() == MotionEvent.ACTION_DOWN) {
@@ -306,6 +539,20 @@ public class ChessBoardView extends View implements ChessGame.OnPawnPromotionLis
     }
 
     private void handleTouch(int row, int col) {
+        Metrics metrics = MetricsRegistry.get();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        Trace.beginSection("ChessBoardView.handleTouch");
+        try {
+            selectOrMove(row, col);
+        } finally {
+            Trace.endSection();
+            if (metrics.isEnabled()) metrics.record(Metrics.Timer.TOUCH, System.nanoTime() - start);
+        }
+    }
+
+    private void selectOrMove(int row, int col) {
+        if (isAiTurn()) return; // Wait for the engine's move
+
         if (selectedRow == -1 && selectedCol == -1) {
             String piece = game.getPieceAt(row, col);
             if (piece != null) {
@@ -313,20 +560,16 @@ public class ChessBoardView extends View implements ChessGame.OnPawnPromotionLis
                 if ((game.isWhiteTurn() && isWhite) || (!game.isWhiteTurn() && !isWhite)) {
                     selectedRow = row;
                     selectedCol = col;
-                    validMoves = game.getValidMoves(row, col);
-
-                    // If selected piece is the king, check castling
-                    if (piece.endsWith("king")) {
-                        if (game.canCastle(isWhite ? "white" : "black", true)) {
-                            validMoves.add(new int[]{row, 7}); // Select rook
-                        }
-                        if (game.canCastle(isWhite ? "white" : "black", false)) {
-                            validMoves.add(new int[]{row, 0}); // Select rook
-                        }
+                    MoveTable table = precomputer.getMoveTable(game.getHash());
+                    if (table != null) {
+                        selectFromTable(table, row, col, piece);
+                    } else {
+                        selectComputed(row, col, piece, isWhite);
                     }
                 }
             }
         } else {
+            boolean moved = false;
             for (int[] move : validMoves) {
                 if (move[0] == row && move[1] == col) {
                     String selectedPiece = game.getPieceAt(selectedRow, selectedCol);
@@ -335,9 +578,15 @@ public class ChessBoardView extends View implements ChessGame.OnPawnPromotionLis
                     if (selectedPiece.endsWith("king") && game.getPieceAt(row, col) != null &&
                             game.getPieceAt(row, col).endsWith("rook")) {
 
-                        game.castle(game.isWhiteTurn() ? "white" : "black", col == 7);
+                        moved = game.castle(game.isWhiteTurn() ? "white" : "black", col == 7);
+                    } else if (game.isPromotionMove(selectedRow, selectedCol, row)
+                            && game.isValidMove(selectedRow, selectedCol, row, col)) {
+                        // Ask for the promotion piece first; the move is played once it is chosen
+                        promotionFromRow = selectedRow;
+                        promotionFromCol = selectedCol;
+                        showPawnPromotionDialog(row, col, game.isWhiteTurn() ? "white" : "black");
                     } else {
-                        game.movePiece(selectedRow, selectedCol, row, col);
+                        moved = game.movePiece(selectedRow, selectedCol, row, col);
                     }
                     break;
                 }
@@ -345,13 +594,81 @@ public class ChessBoardView extends View implements ChessGame.OnPawnPromotionLis
             selectedRow = -1;
             selectedCol = -1;
             validMoves.clear();
+            hintMoves.clear();
+            if (moved) onPositionChanged();
         }
         invalidate();
     }
 
+    // Moves of the selected piece from the precomputed table; all of them are legal
+    private void selectFromTable(MoveTable table, int row, int col, String piece) {
+        validMoves = table.getMoves(row, col);
+        if (piece.endsWith("king")) {
+            for (int[] move : validMoves) {
+                // Castling is played by selecting the rook
+                if (Math.abs(move[1] - col) == 2) move[1] = move[1] > col ? 7 : 0;
+            }
+        }
+        hintMoves = new ArrayList<>(validMoves);
+    }
+
+    private void selectComputed(int row, int col, String piece, boolean isWhite) {
+        validMoves = game.getValidMoves(row, col);
 
-    public void promotePawn(int row, int col, String newPiece) {
-        game.setPieceAt(row, col, newPiece); // Replace pawn with selected piece
+        // If selected piece is the king, check castling
+        if (piece.endsWith("king")) {
+            if (game.canCastle(isWhite ? "white" : "black", true)) {
+                validMoves.add(new int[]{row, 7}); // Select rook
+            }
+            if (game.canCastle(isWhite ? "white" : "black", false)) {
+                validMoves.add(new int[]{row, 0}); // Select rook
+            }
+        }
+
+        // **Filter Valid Moves: Only Show Moves That Don't Leave King in Check**
+        hintMoves = new ArrayList<>();
+        for (int[] move : validMoves) {
+            if (game.isMoveSafe(row, col, move[0], move[1])) {
+                hintMoves.add(move);
+            }
+        }
+    }
+
+    private boolean isAiTurn() {
+        return aiColor != null && aiColor.equals(game.isWhiteTurn() ? "white" : "black");
+    }
+
+    // Lets the engine answer if it is its turn; otherwise prepares for the player's next touch
+    private void onPositionChanged() {
+        Position position = game.getSnapshot();
+        cancelMate();
+        if (openingIndex != null) explorerMoves = openingIndex.lookup(position.getHash());
+        if (analyzer != null) {
+            analysis = null;
+            analyzer.analyze(position);
+        }
+        if (isAiTurn()) {
+            long hash = position.getHash();
+            precomputer.requestReply(position, move -> post(() -> playAiMove(hash, move)));
+        } else {
+            precomputer.update(position, aiColor != null);
+        }
+    }
+
+    private void playAiMove(long hash, int move) {
+        if (move == 0 || game.getHash() != hash) return;
+        game.makeMove(Move.unpack(move));
+        invalidate();
+        onPositionChanged();
+    }
+
+
+    public void promotePawn(int row, int col, String pieceName) {
+        if (promotionFromRow == -1) return;
+        boolean moved = game.movePiece(promotionFromRow, promotionFromCol, row, col, pieceName); // Promotion is part of the move
+        promotionFromRow = -1;
+        promotionFromCol = -1;
+        if (moved) onPositionChanged();
         invalidate(); // Redraw board
     }
 
@@ -360,9 +677,4 @@ public class ChessBoardView extends View implements ChessGame.OnPawnPromotionLis
         dialog.show(((AppCompatActivity) getContext()).getSupportFragmentManager(), "PawnPromotionDialog");
     }
 
-    @Override
-    public void onPawnPromotion(int row, int col, String color) {
-        showPawnPromotionDialog(row, col, color); // Call method to show dialog
-    }
-
 }
\ No newline at end of file
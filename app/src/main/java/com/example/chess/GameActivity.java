@@ -2,11 +2,25 @@ package com.example.chess;
 
 import android.os.Bundle;
 import android.widget.ImageView;
+import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.chess.explorer.OpeningIndex;
+
+import java.io.File;
+import java.io.IOException;
+
 public class GameActivity extends AppCompatActivity {
+    /** Color the engine plays, "white" or "black"; without it two players share the board. */
+    public static final String EXTRA_AI_COLOR = "com.example.chess.AI_COLOR";
+    /** Number of engine lines to show while playing; 0 or absent for no analysis. */
+    public static final String EXTRA_ANALYSIS_LINES = "com.example.chess.ANALYSIS_LINES";
+    /** Directory of an opening index whose most played moves are shown; absent for none. */
+    public static final String EXTRA_OPENING_INDEX = "com.example.chess.OPENING_INDEX";
+
     private ChessBoardView chessBoardView;
     private ImageView backgroundImage; // Add this line
+    private OpeningIndex openingIndex;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -19,5 +33,35 @@ public class GameActivity extends AppCompatActivity {
 
         // Pass the backgroundImage to ChessBoardView
         chessBoardView.setBackgroundImage(backgroundImage); // Add this line
+
+        String aiColor = getIntent().getStringExtra(EXTRA_AI_COLOR);
+        if (aiColor != null) {
+            chessBoardView.setAiColor(aiColor);
+        }
+        int analysisLines = getIntent().getIntExtra(EXTRA_ANALYSIS_LINES, 0);
+        if (analysisLines > 0) {
+            chessBoardView.setAnalysisLines(analysisLines);
+        }
+        String indexDirectory = getIntent().getStringExtra(EXTRA_OPENING_INDEX);
+        if (indexDirectory != null) {
+            try {
+                openingIndex = OpeningIndex.open(new File(indexDirectory));
+                chessBoardView.setOpeningIndex(openingIndex);
+            } catch (IOException e) {
+                Toast.makeText(this, "Cannot open opening index: " + e.getMessage(), Toast.LENGTH_LONG).show();
+            }
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (openingIndex != null) {
+            try {
+                openingIndex.close();
+            } catch (IOException e) {
+                // Read-only files: nothing was lost
+            }
+        }
     }
 }
\ No newline at end of file
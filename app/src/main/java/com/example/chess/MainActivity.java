@@ -22,8 +22,9 @@ public class MainActivity extends AppCompatActivity {
         });
 
         btn1vAI.setOnClickListener(v -> {
-            // Later, add an AI selection screen before starting the game
-            Intent intent = new Intent(MainActivity.this, AISelectionActivity.class);
+            // The player takes white until there is an AI selection screen
+            Intent intent = new Intent(MainActivity.this, GameActivity.class);
+            intent.putExtra(GameActivity.EXTRA_AI_COLOR, "black");
             startActivity(intent);
         });
     }
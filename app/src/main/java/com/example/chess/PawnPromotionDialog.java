@@ -65,8 +65,7 @@ public class PawnPromotionDialog extends DialogFragment {
     }
 
     private void selectPiece(String pieceName) {
-        String newPiece = color + pieceName.toLowerCase();
-        ((ChessBoardView) getActivity().findViewById(R.id.chessBoardView)).promotePawn(row, col, newPiece);
+        ((ChessBoardView) getActivity().findViewById(R.id.chessBoardView)).promotePawn(row, col, pieceName.toLowerCase());
         dismiss(); // Close dialog after selection
     }
 }
@@ -0,0 +1,1093 @@
+package com.example.chess;
+
+import com.example.chess.metrics.Metrics;
+import com.example.chess.metrics.MetricsRegistry;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+/**
+ * Rules and state of a single game. The board is stored as one byte per square and the
+ * castling flags as one bitmask, so a game costs about a hundred bytes and many thousands
+ * of them can be held at once.
+ *
+ * <p>Besides the square-based API used by the UI, the game offers a packed-move API for
+ * search: {@link #generateMoves} lists pseudo-legal moves as ints (see {@link Move#pack}),
+ * {@link #doMove} plays one and {@link #undoMove} takes it back. A Zobrist hash of the
+ * position is kept up to date on every change.
+ *
+ * <p>A ChessGame is not thread-safe. Each instance must only be used by one thread at a
+ * time; code that shares games between threads (such as the game server) confines every
+ * game to its own serial executor. The one exception is {@link #getSnapshot}, which any
+ * thread may call to get an immutable copy of the position.
+ */
+public class ChessGame {
+    public static final int BOARD_SIZE = 8;
+
+    // Piece codes: the low three bits hold the piece type, BLACK marks black pieces
+    public static final byte EMPTY = 0;
+    public static final byte PAWN = 1, KNIGHT = 2, BISHOP = 3, ROOK = 4, QUEEN = 5, KING = 6;
+    public static final byte BLACK = 8;
+
+    private static final String[] PIECE_NAMES = {
+            null, "whitepawn", "whiteknight", "whitebishop", "whiterook", "whitequeen", "whiteking", null,
+            null, "blackpawn", "blackknight", "blackbishop", "blackrook", "blackqueen", "blackking", null
+    };
+    private static final String FEN_PIECES = " PNBRQK  pnbrqk ";
+
+    // Castling rights
+    public static final int WHITE_KINGSIDE = 1, WHITE_QUEENSIDE = 2, BLACK_KINGSIDE = 4, BLACK_QUEENSIDE = 8;
+
+    // Rights that survive a move touching each square: kings and corner rooks clear theirs
+    private static final byte[] CASTLING_MASK = new byte[64];
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KING_OFFSETS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_OFFSETS = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+
+    // Zobrist keys
+    private static final long[][] PIECE_KEYS = new long[16][64];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+    private static final long SIDE_KEY;
+
+    static {
+        Arrays.fill(CASTLING_MASK, (byte) 15);
+        CASTLING_MASK[square(7, 4)] = (byte) ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[square(0, 4)] = (byte) ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[square(7, 7)] = (byte) ~WHITE_KINGSIDE;
+        CASTLING_MASK[square(7, 0)] = (byte) ~WHITE_QUEENSIDE;
+        CASTLING_MASK[square(0, 7)] = (byte) ~BLACK_KINGSIDE;
+        CASTLING_MASK[square(0, 0)] = (byte) ~BLACK_QUEENSIDE;
+
+        SplittableRandom random = new SplittableRandom(0x5EED_C4E55L);
+        for (int piece = 1; piece < PIECE_KEYS.length; piece++) {
+            for (int sq = 0; sq < 64; sq++) PIECE_KEYS[piece][sq] = random.nextLong();
+        }
+        for (int i = 0; i < CASTLING_KEYS.length; i++) CASTLING_KEYS[i] = random.nextLong();
+        for (int i = 0; i < EN_PASSANT_KEYS.length; i++) EN_PASSANT_KEYS[i] = random.nextLong();
+        SIDE_KEY = random.nextLong();
+    }
+
+    private final byte[] board = new byte[BOARD_SIZE * BOARD_SIZE];
+    private final byte[] kingSquares = new byte[2]; // white, black; -1 if missing
+    private boolean isWhiteTurn = true;
+    private byte castlingRights = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
+    private byte enPassantSquare = -1; // square a pawn may capture onto en passant, or -1
+    private long hash;
+    private int halfmoveClock; // plies since the last capture or pawn move
+    private int startPly;      // plies played before the position this game was set up from
+
+    // Undo history, one entry per played move
+    private int historySize;
+    private int[] historyMoves = new int[16];
+    private byte[] historyCaptured = new byte[16];
+    private byte[] historyCastling = new byte[16];
+    private byte[] historyEnPassant = new byte[16];
+    private long[] historyHash = new long[16];
+    private short[] historyHalfmoveClock = new short[16];
+    // Hashes of positions reached before this game was set up, oldest first: repetitions only, no undo
+    private long[] priorHashes = new long[0];
+
+    // Position as of the last move applied through the game-level API, for readers on other threads
+    private volatile Position snapshot;
+    private int publishedSize; // history size when the snapshot was taken
+    private MoveObserver observer;
+
+    // Counts for the innermost loops, kept here and passed on to the metrics by flushCounts
+    private boolean counting;
+    private long movesGenerated, checkTests;
+
+    public ChessGame() {
+        initializeBoard();
+        updateKingSquares();
+        hash = computeHash();
+        publish();
+    }
+
+    /** Creates an independent copy of {@code other}, including its move history. */
+    public ChessGame(ChessGame other) {
+        System.arraycopy(other.board, 0, board, 0, board.length);
+        kingSquares[0] = other.kingSquares[0];
+        kingSquares[1] = other.kingSquares[1];
+        isWhiteTurn = other.isWhiteTurn;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        hash = other.hash;
+        halfmoveClock = other.halfmoveClock;
+        startPly = other.startPly;
+        historySize = other.historySize;
+        int capacity = Math.max(16, historySize);
+        historyMoves = Arrays.copyOf(other.historyMoves, capacity);
+        historyCaptured = Arrays.copyOf(other.historyCaptured, capacity);
+        historyCastling = Arrays.copyOf(other.historyCastling, capacity);
+        historyEnPassant = Arrays.copyOf(other.historyEnPassant, capacity);
+        historyHash = Arrays.copyOf(other.historyHash, capacity);
+        historyHalfmoveClock = Arrays.copyOf(other.historyHalfmoveClock, capacity);
+        priorHashes = other.priorHashes;
+        counting = other.counting;
+        publish();
+    }
+
+    /** Sets up the position of {@code position}, knowing its recent positions for repetitions only. */
+    ChessGame(Position position) {
+        System.arraycopy(position.board, 0, board, 0, board.length);
+        isWhiteTurn = position.whiteToMove;
+        castlingRights = position.castlingRights;
+        enPassantSquare = position.enPassantSquare;
+        hash = position.hash;
+        halfmoveClock = position.halfmoveClock;
+        startPly = position.ply;
+        priorHashes = position.previousHashes;
+        updateKingSquares();
+        snapshot = position;
+    }
+
+    public ChessGame copy() {
+        return new ChessGame(this);
+    }
+
+    private void initializeBoard() {
+        // Place pawns
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            board[square(1, i)] = BLACK | PAWN;
+            board[square(6, i)] = PAWN;
+        }
+
+        // Place other pieces
+        byte[] backRow = {ROOK, KNIGHT, BISHOP, QUEEN, KING, BISHOP, KNIGHT, ROOK};
+
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            board[square(0, i)] = (byte) (BLACK | backRow[i]);
+            board[square(7, i)] = backRow[i];
+        }
+    }
+
+    /**
+     * Builds a game from a FEN string. All six fields are used; missing move counters
+     * default to "0 1".
+     *
+     * @throws IllegalArgumentException if the placement or side to move is malformed
+     */
+    public static ChessGame fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 2) throw new IllegalArgumentException("Bad FEN: " + fen);
+
+        ChessGame game = new ChessGame();
+        Arrays.fill(game.board, EMPTY);
+
+        String[] rows = fields[0].split("/");
+        if (rows.length != BOARD_SIZE) throw new IllegalArgumentException("Bad FEN: " + fen);
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            int col = 0;
+            for (char c : rows[row].toCharArray()) {
+                if (c >= '1' && c <= '8') {
+                    col += c - '0';
+                } else {
+                    int code = FEN_PIECES.indexOf(c);
+                    if (code <= 0 || col >= BOARD_SIZE) throw new IllegalArgumentException("Bad FEN: " + fen);
+                    game.board[square(row, col++)] = (byte) code;
+                }
+            }
+            if (col != BOARD_SIZE) throw new IllegalArgumentException("Bad FEN: " + fen);
+        }
+
+        if (!fields[1].equals("w") && !fields[1].equals("b")) throw new IllegalArgumentException("Bad FEN: " + fen);
+        game.isWhiteTurn = fields[1].equals("w");
+
+        int rights = 0;
+        String castling = fields.length > 2 ? fields[2] : "-";
+        if (castling.indexOf('K') >= 0) rights |= WHITE_KINGSIDE;
+        if (castling.indexOf('Q') >= 0) rights |= WHITE_QUEENSIDE;
+        if (castling.indexOf('k') >= 0) rights |= BLACK_KINGSIDE;
+        if (castling.indexOf('q') >= 0) rights |= BLACK_QUEENSIDE;
+        game.castlingRights = (byte) rights;
+
+        String enPassant = fields.length > 3 ? fields[3] : "-";
+        if (enPassant.length() == 2) {
+            int col = enPassant.charAt(0) - 'a', row = '8' - enPassant.charAt(1);
+            if ((row == 2 || row == 5) && col >= 0 && col < BOARD_SIZE && game.hasEnPassantCapturer(square(row, col), game.isWhiteTurn)) {
+                game.enPassantSquare = (byte) square(row, col);
+            }
+        }
+
+        try {
+            game.halfmoveClock = fields.length > 4 ? Math.max(0, Integer.parseInt(fields[4])) : 0;
+            int fullmoveNumber = fields.length > 5 ? Math.max(1, Integer.parseInt(fields[5])) : 1;
+            game.startPly = 2 * (fullmoveNumber - 1) + (game.isWhiteTurn ? 0 : 1);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad FEN: " + fen);
+        }
+
+        game.updateKingSquares();
+        game.hash = game.computeHash();
+        game.publish();
+        return game;
+    }
+
+    public String toFen() {
+        return toFen(board, isWhiteTurn, castlingRights, enPassantSquare, halfmoveClock, getFullmoveNumber());
+    }
+
+    static String toFen(byte[] board, boolean isWhiteTurn, int castlingRights, int enPassantSquare,
+                        int halfmoveClock, int fullmoveNumber) {
+        StringBuilder sb = new StringBuilder(90);
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            int empty = 0;
+            for (int col = 0; col < BOARD_SIZE; col++) {
+                byte piece = board[square(row, col)];
+                if (piece == EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) sb.append(empty);
+                empty = 0;
+                sb.append(FEN_PIECES.charAt(piece));
+            }
+            if (empty > 0) sb.append(empty);
+            if (row < BOARD_SIZE - 1) sb.append('/');
+        }
+        sb.append(isWhiteTurn ? " w " : " b ");
+        if (castlingRights == 0) sb.append('-');
+        if ((castlingRights & WHITE_KINGSIDE) != 0) sb.append('K');
+        if ((castlingRights & WHITE_QUEENSIDE) != 0) sb.append('Q');
+        if ((castlingRights & BLACK_KINGSIDE) != 0) sb.append('k');
+        if ((castlingRights & BLACK_QUEENSIDE) != 0) sb.append('q');
+        if (enPassantSquare < 0) {
+            sb.append(" -");
+        } else {
+            sb.append(' ').append((char) ('a' + (enPassantSquare & 7))).append(8 - (enPassantSquare >> 3));
+        }
+        sb.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return sb.toString();
+    }
+
+    public String getPieceAt(int row, int col) {
+        return PIECE_NAMES[board[square(row, col)]];
+    }
+
+    static String pieceName(byte piece) {
+        return PIECE_NAMES[piece];
+    }
+
+    /**
+     * Returns an immutable copy of the position as of the last move applied with
+     * {@link #makeMove}, {@link #movePiece}, {@link #castle} or {@link #setPieceAt}, or taken
+     * back with {@link #undoMove}, or as set up. Moves played with {@link #doMove} are search
+     * steps and are not published. Safe to call from any thread.
+     */
+    public Position getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Starts or stops counting generated moves and square attack tests in this game and its
+     * copies, for a search or perft run to hand to the metrics with {@link #flushCounts} when it
+     * is done. Off by default: these sit in the innermost loops and are not counted otherwise.
+     */
+    public void setCounting(boolean counting) {
+        this.counting = counting;
+    }
+
+    /** Adds the counts made since the last flush to {@code metrics} and clears them. */
+    public void flushCounts(Metrics metrics) {
+        if (movesGenerated != 0) metrics.count(Metrics.Counter.MOVES_GENERATED, movesGenerated);
+        if (checkTests != 0) metrics.count(Metrics.Counter.CHECK_TESTS, checkTests);
+        movesGenerated = 0;
+        checkTests = 0;
+    }
+
+    private void publish() {
+        publishedSize = historySize;
+        int count = Math.min(halfmoveClock, priorHashes.length + historySize);
+        long[] previous = new long[count];
+        for (int i = 0; i < count; i++) previous[i] = previousHash(historySize - count + i);
+        snapshot = new Position(board.clone(), isWhiteTurn, castlingRights, enPassantSquare, hash, halfmoveClock,
+                startPly + historySize, previous);
+    }
+
+    /** Hash of the position before history entry {@code i}; negative indexes reach before the setup. */
+    private long previousHash(int i) {
+        return i >= 0 ? historyHash[i] : priorHashes[priorHashes.length + i];
+    }
+
+    /**
+     * Sets the observer told about every move played and taken back from now on, or null for
+     * none. Copies of the game do not inherit it.
+     */
+    public void setMoveObserver(MoveObserver observer) {
+        this.observer = observer;
+    }
+
+    /** Returns the piece code on a square (0-63, a8 first), or {@link #EMPTY}. */
+    public byte getPieceCode(int square) {
+        return board[square];
+    }
+
+    public boolean isWhiteTurn() {
+        return isWhiteTurn;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /** Zobrist hash of the position: placement, side to move, castling and en passant rights. */
+    public long getHash() {
+        return hash;
+    }
+
+    /** Plies since the last capture or pawn move, for the fifty-move rule. */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /** Move number as written in FEN and PGN: starts at 1 and goes up after each black move. */
+    public int getFullmoveNumber() {
+        return (startPly + historySize) / 2 + 1;
+    }
+
+    /** Number of moves played on this game that can be taken back with {@link #undoMove}. */
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    public List<int[]> getValidMoves(int row, int col) {
+        Metrics metrics = MetricsRegistry.get();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        List<int[]> validMoves = new ArrayList<>();
+        byte piece = board[square(row, col)];
+
+        if (piece != EMPTY) addValidMoves(validMoves, row, col, piece);
+
+        if (metrics.isEnabled()) metrics.record(Metrics.Timer.LEGAL_MOVE_GENERATION, System.nanoTime() - start);
+        return validMoves;
+    }
+
+    private void addValidMoves(List<int[]> validMoves, int row, int col, byte piece) {
+        boolean isWhite = (piece & BLACK) == 0;
+
+        switch (piece & 7) {
+            case PAWN:
+                addPawnMoves(validMoves, row, col, isWhite);
+                break;
+            case ROOK:
+                addLinearMoves(validMoves, row, col, isWhite, ROOK_DIRECTIONS);
+                break;
+            case KNIGHT:
+                addStepMoves(validMoves, row, col, isWhite, KNIGHT_OFFSETS);
+                break;
+            case BISHOP:
+                addLinearMoves(validMoves, row, col, isWhite, BISHOP_DIRECTIONS);
+                break;
+            case QUEEN:
+                addLinearMoves(validMoves, row, col, isWhite, ROOK_DIRECTIONS);
+                addLinearMoves(validMoves, row, col, isWhite, BISHOP_DIRECTIONS);
+                break;
+            case KING:
+                addStepMoves(validMoves, row, col, isWhite, KING_OFFSETS);
+                break;
+        }
+    }
+
+    /**
+     * Returns every legal move for the side to move, including castling (as a two-square
+     * king move) and one move per promotion piece.
+     */
+    public List<Move> getLegalMoves() {
+        Metrics metrics = MetricsRegistry.get();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        int[] moves = new int[256];
+        int count = generateMoves(moves, false);
+        List<Move> legalMoves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (doMove(moves[i])) {
+                undoMove();
+                legalMoves.add(Move.unpack(moves[i]));
+            }
+        }
+        if (metrics.isEnabled()) {
+            metrics.count(Metrics.Counter.TRIAL_MOVES, count);
+            metrics.record(Metrics.Timer.LEGAL_MOVE_GENERATION, System.nanoTime() - start);
+        }
+        return legalMoves;
+    }
+
+    public boolean isValidMove(int fromRow, int fromCol, int toRow, int toCol) {
+        List<int[]> validMoves = getValidMoves(fromRow, fromCol);
+
+        // Check if the move is normally valid
+        boolean foundMove = false;
+        for (int[] move : validMoves) {
+            if (move[0] == toRow && move[1] == toCol) {
+                foundMove = true;
+                break;
+            }
+        }
+
+        if (!foundMove) return false;
+
+        return isMoveSafe(fromRow, fromCol, toRow, toCol); // Move is only valid if king is not left in check
+    }
+
+    public boolean isPromotionMove(int fromRow, int fromCol, int toRow) {
+        byte piece = board[square(fromRow, fromCol)];
+        return (piece == PAWN && toRow == 0) || (piece == (BLACK | PAWN) && toRow == 7);
+    }
+
+    /**
+     * Plays {@code move} for the side to move. A two-square king move from its home square
+     * is played as castling.
+     *
+     * @return true if the move was legal and has been applied
+     */
+    public boolean makeMove(Move move) {
+        byte piece = board[square(move.fromRow, move.fromCol)];
+        if ((piece & 7) == KING && move.fromCol == 4 && move.fromRow == move.toRow
+                && Math.abs(move.toCol - move.fromCol) == 2) {
+            if (((piece & BLACK) == 0) != isWhiteTurn) return false;
+            return castle(isWhiteTurn ? "white" : "black", move.toCol == 6);
+        }
+        return movePiece(move.fromRow, move.fromCol, move.toRow, move.toCol, move.promotion);
+    }
+
+    public boolean movePiece(int fromRow, int fromCol, int toRow, int toCol) {
+        return movePiece(fromRow, fromCol, toRow, toCol, null);
+    }
+
+    /**
+     * Plays a move for the side to move. A pawn reaching the last rank becomes
+     * {@code promotionPiece} ("queen", "rook", "bishop" or "knight"); a queen if none is given.
+     *
+     * @return true if the move was legal and has been applied
+     */
+    public boolean movePiece(int fromRow, int fromCol, int toRow, int toCol, String promotionPiece) {
+        byte piece = board[square(fromRow, fromCol)];
+        if (piece == EMPTY) return false;
+        if (promotionPiece != null && !isPromotionPiece(promotionPiece)) return false;
+
+        boolean isWhite = (piece & BLACK) == 0;
+
+        // Enforce turn rules
+        if (isWhiteTurn != isWhite) {
+            return false;
+        }
+
+        if (!isValidMove(fromRow, fromCol, toRow, toCol)) {
+            return false;
+        }
+
+        // **Pawn Promotion**
+        int promotion = 0;
+        if ((piece & 7) == PAWN && (toRow == 0 || toRow == 7)) {
+            promotion = Move.promotionType(promotionPiece != null ? promotionPiece : "queen");
+        }
+
+        if (!doMove(Move.pack(square(fromRow, fromCol), square(toRow, toCol), promotion))) return false;
+        publish();
+        return true;
+    }
+
+    /**
+     * Replaces the piece on a square. This edits the position directly: castling and en
+     * passant rights are left alone and the move history is not touched.
+     */
+    public void setPieceAt(int row, int col, String newPiece) {
+        int sq = square(row, col);
+        hash ^= PIECE_KEYS[board[sq]][sq];
+        board[sq] = pieceCode(newPiece);
+        hash ^= PIECE_KEYS[board[sq]][sq];
+        updateKingSquares();
+        if (observer != null) observer.onReset(this);
+        publish();
+    }
+
+    public int[] findKingPosition(String playerColor) {
+        int sq = kingSquares[playerColor.equals("white") ? 0 : 1];
+        if (sq < 0) {
+            return null; // Should never happen unless the king is missing
+        }
+        return new int[]{sq >> 3, sq & 7};
+    }
+
+    public boolean isMoveSafe(int fromRow, int fromCol, int toRow, int toCol) {
+        Metrics metrics = MetricsRegistry.get();
+        if (metrics.isEnabled()) metrics.count(Metrics.Counter.TRIAL_MOVES, 1);
+        int from = square(fromRow, fromCol);
+        int to = square(toRow, toCol);
+
+        // Simulate the move
+        byte piece = board[from];
+        byte capturedPiece = board[to];
+        boolean isWhite = (piece & BLACK) == 0;
+        int enPassantVictim = -1;
+        if ((piece & 7) == PAWN && to == enPassantSquare && fromCol != toCol) {
+            enPassantVictim = square(fromRow, toCol);
+        }
+
+        board[to] = piece;
+        board[from] = EMPTY;
+        if (enPassantVictim >= 0) board[enPassantVictim] = EMPTY;
+
+        // Check if the king is still in check
+        int kingSquare = (piece & 7) == KING ? to : kingSquares[isWhite ? 0 : 1];
+        boolean kingStillInCheck = kingSquare >= 0 && isSquareAttacked(kingSquare >> 3, kingSquare & 7, !isWhite);
+
+        // Undo move
+        board[from] = piece;
+        board[to] = capturedPiece;
+        if (enPassantVictim >= 0) board[enPassantVictim] = (byte) (piece ^ BLACK);
+
+        return !kingStillInCheck; // Move is safe if king is not left in check
+    }
+
+    public boolean isKingInCheck(String playerColor) {
+        int sq = kingSquares[playerColor.equals("white") ? 0 : 1];
+        if (sq < 0) return false;
+
+        return isSquareAttacked(sq >> 3, sq & 7, !playerColor.equals("white"));
+    }
+
+    /** Returns whether the side to move is in check. */
+    public boolean isInCheck() {
+        int sq = kingSquares[isWhiteTurn ? 0 : 1];
+        return sq >= 0 && isSquareAttacked(sq >> 3, sq & 7, !isWhiteTurn);
+    }
+
+    public boolean isCheckmate(String playerColor) {
+        Metrics metrics = MetricsRegistry.get();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        // Not in check is not checkmate; otherwise it is if no valid moves are left
+        boolean checkmate = isKingInCheck(playerColor) && !hasSafeMove(playerColor);
+        if (metrics.isEnabled()) metrics.record(Metrics.Timer.STATUS_CHECK, System.nanoTime() - start);
+        return checkmate;
+    }
+
+    public boolean isStalemate(String playerColor) {
+        Metrics metrics = MetricsRegistry.get();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        // If king is in check, it's not stalemate
+        boolean stalemate = !isKingInCheck(playerColor) && !hasSafeMove(playerColor);
+        if (metrics.isEnabled()) metrics.record(Metrics.Timer.STATUS_CHECK, System.nanoTime() - start);
+        return stalemate;
+    }
+
+    /**
+     * Returns whether the game is drawn by rule: fifty moves without a capture or pawn move,
+     * the same position for the third time, or too little material left to mate.
+     */
+    public boolean isDraw() {
+        Metrics metrics = MetricsRegistry.get();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        boolean draw = halfmoveClock >= 100 || countRepetitions() >= 2 || isInsufficientMaterial();
+        if (metrics.isEnabled()) metrics.record(Metrics.Timer.STATUS_CHECK, System.nanoTime() - start);
+        return draw;
+    }
+
+    /** Returns whether the current position has occurred before since the last irreversible move. */
+    public boolean isRepetition() {
+        for (int i = historySize - 4; i >= historySize - halfmoveClock && i >= -priorHashes.length; i -= 2) {
+            if (previousHash(i) == hash) return true;
+        }
+        return false;
+    }
+
+    private int countRepetitions() {
+        int count = 0;
+        for (int i = historySize - 4; i >= historySize - halfmoveClock && i >= -priorHashes.length; i -= 2) {
+            if (previousHash(i) == hash) count++;
+        }
+        return count;
+    }
+
+    /** King against king, or king and a single minor piece against king. */
+    public boolean isInsufficientMaterial() {
+        int minors = 0;
+        for (byte piece : board) {
+            int type = piece & 7;
+            if (type == PAWN || type == ROOK || type == QUEEN) return false;
+            if (type == KNIGHT || type == BISHOP) minors++;
+        }
+        return minors <= 1;
+    }
+
+    private boolean hasSafeMove(String playerColor) {
+        boolean isWhite = playerColor.equals("white");
+
+        // Loop through all pieces of the player
+        List<int[]> moves = new ArrayList<>();
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            for (int col = 0; col < BOARD_SIZE; col++) {
+                byte piece = board[square(row, col)];
+                if (isFriendly(isWhite, piece)) {
+                    moves.clear();
+                    addValidMoves(moves, row, col, piece);
+                    for (int[] move : moves) {
+                        if (isMoveSafe(row, col, move[0], move[1])) {
+                            return true; // At least one legal move exists
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Returns whether any piece of the given side attacks the square. */
+    public boolean isSquareAttacked(int row, int col, boolean byWhite) {
+        if (counting) checkTests++;
+        byte color = byWhite ? 0 : BLACK;
+
+        // Pawns attack diagonally towards the opponent
+        int pawnRow = byWhite ? row + 1 : row - 1;
+        for (int dc = -1; dc <= 1; dc += 2) {
+            if (isInBounds(pawnRow, col + dc) && board[square(pawnRow, col + dc)] == (color | PAWN)) return true;
+        }
+
+        for (int[] offset : KNIGHT_OFFSETS) {
+            int r = row + offset[0], c = col + offset[1];
+            if (isInBounds(r, c) && board[square(r, c)] == (color | KNIGHT)) return true;
+        }
+        for (int[] offset : KING_OFFSETS) {
+            int r = row + offset[0], c = col + offset[1];
+            if (isInBounds(r, c) && board[square(r, c)] == (color | KING)) return true;
+        }
+
+        return isAttackedAlong(row, col, color, ROOK_DIRECTIONS, ROOK)
+                || isAttackedAlong(row, col, color, BISHOP_DIRECTIONS, BISHOP);
+    }
+
+    private boolean isAttackedAlong(int row, int col, byte color, int[][] directions, byte slider) {
+        for (int[] dir : directions) {
+            int r = row + dir[0], c = col + dir[1];
+            while (isInBounds(r, c)) {
+                byte piece = board[square(r, c)];
+                if (piece != EMPTY) {
+                    if (piece == (color | slider) || piece == (color | QUEEN)) return true;
+                    break;
+                }
+                r += dir[0];
+                c += dir[1];
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the pseudo-legal moves of the side to move into {@code moves} as packed ints and
+     * returns how many there are. Moves may still leave the king in check; {@link #doMove}
+     * rejects those. With {@code capturesOnly}, only captures and queen promotions are listed.
+     */
+    public int generateMoves(int[] moves, boolean capturesOnly) {
+        int count = 0;
+        byte own = isWhiteTurn ? 0 : BLACK;
+        for (int from = 0; from < 64; from++) {
+            byte piece = board[from];
+            if (piece == EMPTY || (piece & BLACK) != own) continue;
+            int row = from >> 3, col = from & 7;
+
+            switch (piece & 7) {
+                case PAWN:
+                    count = generatePawnMoves(moves, count, row, col, capturesOnly);
+                    break;
+                case KNIGHT:
+                    count = generateStepMoves(moves, count, from, KNIGHT_OFFSETS, capturesOnly);
+                    break;
+                case BISHOP:
+                    count = generateSlidingMoves(moves, count, from, BISHOP_DIRECTIONS, capturesOnly);
+                    break;
+                case ROOK:
+                    count = generateSlidingMoves(moves, count, from, ROOK_DIRECTIONS, capturesOnly);
+                    break;
+                case QUEEN:
+                    count = generateSlidingMoves(moves, count, from, ROOK_DIRECTIONS, capturesOnly);
+                    count = generateSlidingMoves(moves, count, from, BISHOP_DIRECTIONS, capturesOnly);
+                    break;
+                case KING:
+                    count = generateStepMoves(moves, count, from, KING_OFFSETS, capturesOnly);
+                    if (!capturesOnly) {
+                        String color = isWhiteTurn ? "white" : "black";
+                        if (canCastle(color, true)) moves[count++] = Move.pack(from, from + 2, 0);
+                        if (canCastle(color, false)) moves[count++] = Move.pack(from, from - 2, 0);
+                    }
+                    break;
+            }
+        }
+        if (counting) movesGenerated += count;
+        return count;
+    }
+
+    private int generatePawnMoves(int[] moves, int count, int row, int col, boolean capturesOnly) {
+        int direction = isWhiteTurn ? -1 : 1;
+        int startRow = isWhiteTurn ? 6 : 1;
+        int from = square(row, col);
+        int toRow = row + direction;
+        boolean promotes = toRow == 0 || toRow == 7;
+
+        // Forward moves
+        int to = square(toRow, col);
+        if (board[to] == EMPTY) {
+            if (promotes) {
+                count = addPromotions(moves, count, from, to, capturesOnly);
+            } else if (!capturesOnly) {
+                moves[count++] = Move.pack(from, to, 0);
+                int doubleTo = square(row + 2 * direction, col);
+                if (row == startRow && board[doubleTo] == EMPTY) {
+                    moves[count++] = Move.pack(from, doubleTo, 0);
+                }
+            }
+        }
+
+        // Captures, including en passant
+        for (int dc = -1; dc <= 1; dc += 2) {
+            if (!isInBounds(toRow, col + dc)) continue;
+            to = square(toRow, col + dc);
+            if (isEnemy(isWhiteTurn, board[to]) || to == enPassantSquare) {
+                if (promotes) {
+                    count = addPromotions(moves, count, from, to, false);
+                } else {
+                    moves[count++] = Move.pack(from, to, 0);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int addPromotions(int[] moves, int count, int from, int to, boolean queenOnly) {
+        moves[count++] = Move.pack(from, to, QUEEN);
+        if (!queenOnly) {
+            moves[count++] = Move.pack(from, to, ROOK);
+            moves[count++] = Move.pack(from, to, BISHOP);
+            moves[count++] = Move.pack(from, to, KNIGHT);
+        }
+        return count;
+    }
+
+    private int generateStepMoves(int[] moves, int count, int from, int[][] offsets, boolean capturesOnly) {
+        int row = from >> 3, col = from & 7;
+        for (int[] offset : offsets) {
+            int r = row + offset[0], c = col + offset[1];
+            if (!isInBounds(r, c)) continue;
+            byte target = board[square(r, c)];
+            if (target == EMPTY ? !capturesOnly : isEnemy(isWhiteTurn, target)) {
+                moves[count++] = Move.pack(from, square(r, c), 0);
+            }
+        }
+        return count;
+    }
+
+    private int generateSlidingMoves(int[] moves, int count, int from, int[][] directions, boolean capturesOnly) {
+        int row = from >> 3, col = from & 7;
+        for (int[] dir : directions) {
+            int r = row + dir[0], c = col + dir[1];
+            while (isInBounds(r, c)) {
+                byte target = board[square(r, c)];
+                if (target == EMPTY) {
+                    if (!capturesOnly) moves[count++] = Move.pack(from, square(r, c), 0);
+                } else {
+                    if (isEnemy(isWhiteTurn, target)) moves[count++] = Move.pack(from, square(r, c), 0);
+                    break;
+                }
+                r += dir[0];
+                c += dir[1];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Plays a pseudo-legal packed move for the side to move, as produced by
+     * {@link #generateMoves}. If it would leave the mover's king in check it is taken back.
+     *
+     * @return true if the move was legal and has been applied
+     */
+    public boolean doMove(int move) {
+        int from = Move.packedFrom(move), to = Move.packedTo(move), promotion = Move.packedPromotion(move);
+        byte piece = board[from];
+        byte captured = board[to];
+        boolean isWhite = isWhiteTurn;
+        int type = piece & 7;
+
+        pushHistory(move, captured);
+
+        long h = hash ^ CASTLING_KEYS[castlingRights] ^ SIDE_KEY;
+        if (enPassantSquare >= 0) h ^= EN_PASSANT_KEYS[enPassantSquare & 7];
+
+        byte placed = promotion != 0 ? (byte) ((piece & BLACK) | promotion) : piece;
+        board[from] = EMPTY;
+        board[to] = placed;
+        h ^= PIECE_KEYS[piece][from] ^ PIECE_KEYS[captured][to] ^ PIECE_KEYS[placed][to];
+
+        if (type == PAWN && to == enPassantSquare) {
+            int victim = to + (isWhite ? 8 : -8);
+            h ^= PIECE_KEYS[board[victim]][victim];
+            board[victim] = EMPTY;
+        } else if (type == KING) {
+            kingSquares[isWhite ? 0 : 1] = (byte) to;
+            if (to - from == 2 || from - to == 2) {
+                // Castling: bring the rook over the king
+                int rookFrom = to > from ? from + 3 : from - 4;
+                int rookTo = to > from ? from + 1 : from - 1;
+                byte rook = board[rookFrom];
+                board[rookFrom] = EMPTY;
+                board[rookTo] = rook;
+                h ^= PIECE_KEYS[rook][rookFrom] ^ PIECE_KEYS[rook][rookTo];
+            }
+        }
+
+        halfmoveClock = (type == PAWN || captured != EMPTY) ? 0 : halfmoveClock + 1;
+
+        enPassantSquare = -1;
+        if (type == PAWN && (to - from == 16 || from - to == 16) && hasEnPassantCapturer((from + to) / 2, !isWhite)) {
+            enPassantSquare = (byte) ((from + to) / 2);
+            h ^= EN_PASSANT_KEYS[enPassantSquare & 7];
+        }
+
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        h ^= CASTLING_KEYS[castlingRights];
+
+        isWhiteTurn = !isWhite;
+        hash = h;
+
+        int kingSquare = kingSquares[isWhite ? 0 : 1];
+        if (kingSquare >= 0 && isSquareAttacked(kingSquare >> 3, kingSquare & 7, !isWhite)) {
+            restore();
+            return false;
+        }
+        if (observer != null) observer.onMove(this, move, piece, captured);
+        return true;
+    }
+
+    /**
+     * Takes back the last move played with {@link #doMove} or any of the move methods. Taking
+     * back a published move publishes the position before it.
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void undoMove() {
+        if (historySize == 0) throw new IllegalStateException("No move to take back");
+        if (observer != null) observer.onUndo(this);
+        restore();
+        if (historySize < publishedSize) publish();
+    }
+
+    private void restore() {
+        int i = --historySize;
+        int move = historyMoves[i];
+        int from = Move.packedFrom(move), to = Move.packedTo(move);
+        byte placed = board[to];
+        byte piece = Move.packedPromotion(move) != 0 ? (byte) ((placed & BLACK) | PAWN) : placed;
+        boolean isWhite = (piece & BLACK) == 0;
+
+        board[from] = piece;
+        board[to] = historyCaptured[i];
+        castlingRights = historyCastling[i];
+        enPassantSquare = historyEnPassant[i];
+        hash = historyHash[i];
+        halfmoveClock = historyHalfmoveClock[i];
+        isWhiteTurn = isWhite;
+
+        if ((piece & 7) == PAWN && to == enPassantSquare) {
+            board[to + (isWhite ? 8 : -8)] = (byte) (piece ^ BLACK);
+        } else if ((piece & 7) == KING) {
+            kingSquares[isWhite ? 0 : 1] = (byte) from;
+            if (to - from == 2 || from - to == 2) {
+                int rookFrom = to > from ? from + 3 : from - 4;
+                int rookTo = to > from ? from + 1 : from - 1;
+                board[rookFrom] = board[rookTo];
+                board[rookTo] = EMPTY;
+            }
+        }
+    }
+
+    /** Passes the turn without moving, for null-move pruning. Undo with {@link #undoNullMove}. */
+    public void doNullMove() {
+        pushHistory(0, EMPTY);
+        if (enPassantSquare >= 0) hash ^= EN_PASSANT_KEYS[enPassantSquare & 7];
+        enPassantSquare = -1;
+        // Repetitions are not looked for across a null move
+        halfmoveClock = 0;
+        hash ^= SIDE_KEY;
+        isWhiteTurn = !isWhiteTurn;
+    }
+
+    public void undoNullMove() {
+        int i = --historySize;
+        enPassantSquare = historyEnPassant[i];
+        hash = historyHash[i];
+        halfmoveClock = historyHalfmoveClock[i];
+        isWhiteTurn = !isWhiteTurn;
+    }
+
+    private void pushHistory(int move, byte captured) {
+        if (historySize == historyMoves.length) {
+            int capacity = historySize * 2;
+            historyMoves = Arrays.copyOf(historyMoves, capacity);
+            historyCaptured = Arrays.copyOf(historyCaptured, capacity);
+            historyCastling = Arrays.copyOf(historyCastling, capacity);
+            historyEnPassant = Arrays.copyOf(historyEnPassant, capacity);
+            historyHash = Arrays.copyOf(historyHash, capacity);
+            historyHalfmoveClock = Arrays.copyOf(historyHalfmoveClock, capacity);
+        }
+        historyMoves[historySize] = move;
+        historyCaptured[historySize] = captured;
+        historyCastling[historySize] = castlingRights;
+        historyEnPassant[historySize] = enPassantSquare;
+        historyHash[historySize] = hash;
+        historyHalfmoveClock[historySize] = (short) halfmoveClock;
+        historySize++;
+    }
+
+    private boolean hasEnPassantCapturer(int square, boolean whiteCaptures) {
+        // The capturing pawn stands beside the pawn that just moved two squares
+        int row = square >> 3, col = square & 7;
+        int pawnRow = whiteCaptures ? row + 1 : row - 1;
+        byte pawn = whiteCaptures ? PAWN : BLACK | PAWN;
+        return (col > 0 && board[square(pawnRow, col - 1)] == pawn) || (col < 7 && board[square(pawnRow, col + 1)] == pawn);
+    }
+
+    private long computeHash() {
+        long h = CASTLING_KEYS[castlingRights];
+        for (int sq = 0; sq < 64; sq++) {
+            if (board[sq] != EMPTY) h ^= PIECE_KEYS[board[sq]][sq];
+        }
+        if (enPassantSquare >= 0) h ^= EN_PASSANT_KEYS[enPassantSquare & 7];
+        if (!isWhiteTurn) h ^= SIDE_KEY;
+        return h;
+    }
+
+    private void updateKingSquares() {
+        kingSquares[0] = kingSquares[1] = -1;
+        for (int sq = 0; sq < 64; sq++) {
+            if (board[sq] == KING) kingSquares[0] = (byte) sq;
+            if (board[sq] == (BLACK | KING)) kingSquares[1] = (byte) sq;
+        }
+    }
+
+    private void addPawnMoves(List<int[]> moves, int row, int col, boolean isWhite) {
+        int direction = isWhite ? -1 : 1;
+        int startRow = isWhite ? 6 : 1;
+
+        // Forward move
+        if (isInBounds(row + direction, col) && board[square(row + direction, col)] == EMPTY) {
+            moves.add(new int[]{row + direction, col});
+
+            // Double move if at starting row
+            if (row == startRow && board[square(row + 2 * direction, col)] == EMPTY) {
+                moves.add(new int[]{row + 2 * direction, col});
+            }
+        }
+
+        // Capture moves (diagonal), including en passant
+        for (int dc = -1; dc <= 1; dc += 2) {
+            int newRow = row + direction, newCol = col + dc;
+            if (isInBounds(newRow, newCol) && (isEnemy(isWhite, board[square(newRow, newCol)])
+                    || (square(newRow, newCol) == enPassantSquare && isWhite == isWhiteTurn))) {
+                moves.add(new int[]{newRow, newCol});
+            }
+        }
+    }
+
+    private void addStepMoves(List<int[]> moves, int row, int col, boolean isWhite, int[][] offsets) {
+        for (int[] offset : offsets) {
+            int newRow = row + offset[0], newCol = col + offset[1];
+            if (isInBounds(newRow, newCol) && !isFriendly(isWhite, board[square(newRow, newCol)])) {
+                moves.add(new int[]{newRow, newCol});
+            }
+        }
+    }
+
+    private void addLinearMoves(List<int[]> moves, int row, int col, boolean isWhite, int[][] directions) {
+        for (int[] dir : directions) {
+            int newRow = row + dir[0], newCol = col + dir[1];
+
+            while (isInBounds(newRow, newCol)) {
+                byte target = board[square(newRow, newCol)];
+                if (target == EMPTY) {
+                    moves.add(new int[]{newRow, newCol});
+                } else {
+                    if (isEnemy(isWhite, target)) {
+                        moves.add(new int[]{newRow, newCol});
+                    }
+                    break;
+                }
+                newRow += dir[0];
+                newCol += dir[1];
+            }
+        }
+    }
+
+    public boolean canCastle(String color, boolean kingside) {
+        boolean isWhite = color.equals("white");
+        int right = isWhite ? (kingside ? WHITE_KINGSIDE : WHITE_QUEENSIDE)
+                : (kingside ? BLACK_KINGSIDE : BLACK_QUEENSIDE);
+        if ((castlingRights & right) == 0) return false;
+
+        int row = isWhite ? 7 : 0;
+        byte colorBits = isWhite ? 0 : BLACK;
+        if (board[square(row, 4)] != (colorBits | KING) || board[square(row, kingside ? 7 : 0)] != (colorBits | ROOK)) {
+            return false;
+        }
+
+        // Ensure no pieces in between
+        int start = kingside ? 5 : 1;
+        int end = kingside ? 6 : 3;
+
+        for (int col = start; col <= end; col++) {
+            if (board[square(row, col)] != EMPTY) return false;
+        }
+
+        // Ensure king does not move out of, through or into check
+        if (isKingInCheck(color) || isSquareAttacked(row, kingside ? 5 : 3, !isWhite)
+                || !isMoveSafe(row, 4, row, kingside ? 6 : 2)) {
+            return false;
+        }
+
+        return true;
+    }
+
+    public boolean castle(String color, boolean kingside) {
+        int row = color.equals("white") ? 7 : 0;
+        if (color.equals("white") != isWhiteTurn || !canCastle(color, kingside)) return false;
+
+        // Moving the king two squares brings the rook along
+        if (!doMove(Move.pack(square(row, 4), square(row, kingside ? 6 : 2), 0))) return false;
+        publish();
+        return true;
+    }
+
+    private static int square(int row, int col) {
+        return row * BOARD_SIZE + col;
+    }
+
+    private static byte pieceCode(String pieceName) {
+        if (pieceName == null) return EMPTY;
+        for (byte code = 0; code < PIECE_NAMES.length; code++) {
+            if (pieceName.equals(PIECE_NAMES[code])) return code;
+        }
+        throw new IllegalArgumentException("Unknown piece: " + pieceName);
+    }
+
+    private boolean isPromotionPiece(String pieceName) {
+        return pieceName.equals("queen") || pieceName.equals("rook") || pieceName.equals("bishop") || pieceName.equals("knight");
+    }
+
+    private boolean isInBounds(int row, int col) {
+        return row >= 0 && row < BOARD_SIZE && col >= 0 && col < BOARD_SIZE;
+    }
+
+    private boolean isFriendly(boolean isWhite, byte piece) {
+        return piece != EMPTY && ((piece & BLACK) == 0) == isWhite;
+    }
+
+    private boolean isEnemy(boolean isWhite, byte piece) {
+        return piece != EMPTY && ((piece & BLACK) == 0) != isWhite;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.chess;
+
+/**
+ * A single move on the board. Pawn promotions carry the piece the pawn turns into
+ * ("queen", "rook", "bishop" or "knight"), so a move can be applied without asking anyone.
+ *
+ * <p>Search code uses the packed form instead: from square, to square and promotion piece
+ * type in one int (see {@link #pack}), with squares numbered 0-63 from a8 to h1.
+ */
+public final class Move {
+    public final int fromRow, fromCol;
+    public final int toRow, toCol;
+    public final String promotion;
+
+    public Move(int fromRow, int fromCol, int toRow, int toCol) {
+        this(fromRow, fromCol, toRow, toCol, null);
+    }
+
+    public Move(int fromRow, int fromCol, int toRow, int toCol, String promotion) {
+        this.fromRow = fromRow;
+        this.fromCol = fromCol;
+        this.toRow = toRow;
+        this.toCol = toCol;
+        this.promotion = promotion;
+    }
+
+    public static int pack(int from, int to, int promotionType) {
+        return from | to << 6 | promotionType << 12;
+    }
+
+    public static int packedFrom(int packed) {
+        return packed & 63;
+    }
+
+    public static int packedTo(int packed) {
+        return (packed >>> 6) & 63;
+    }
+
+    /** Piece type a packed move promotes to ({@link ChessGame#QUEEN} etc.), or 0. */
+    public static int packedPromotion(int packed) {
+        return (packed >>> 12) & 7;
+    }
+
+    public static Move unpack(int packed) {
+        int from = packedFrom(packed), to = packedTo(packed);
+        return new Move(from >> 3, from & 7, to >> 3, to & 7, promotionName(packedPromotion(packed)));
+    }
+
+    public int pack() {
+        return pack(fromRow * 8 + fromCol, toRow * 8 + toCol, promotion == null ? 0 : promotionType(promotion));
+    }
+
+    static int promotionType(String pieceName) {
+        switch (pieceName) {
+            case "queen": return ChessGame.QUEEN;
+            case "rook": return ChessGame.ROOK;
+            case "bishop": return ChessGame.BISHOP;
+            case "knight": return ChessGame.KNIGHT;
+            default: throw new IllegalArgumentException("Not a promotion piece: " + pieceName);
+        }
+    }
+
+    private static String promotionName(int type) {
+        switch (type) {
+            case ChessGame.QUEEN: return "queen";
+            case ChessGame.ROOK: return "rook";
+            case ChessGame.BISHOP: return "bishop";
+            case ChessGame.KNIGHT: return "knight";
+            default: return null;
+        }
+    }
+
+    /**
+     * Parses a move in coordinate notation such as "e2e4" or "e7e8q".
+     *
+     * @throws IllegalArgumentException if the text is not a move on the board
+     */
+    public static Move parse(String text) {
+        if (text.length() != 4 && text.length() != 5) throw new IllegalArgumentException("Bad move: " + text);
+        int fromCol = text.charAt(0) - 'a', fromRow = '8' - text.charAt(1);
+        int toCol = text.charAt(2) - 'a', toRow = '8' - text.charAt(3);
+        if ((fromCol | fromRow | toCol | toRow) < 0 || fromCol > 7 || fromRow > 7 || toCol > 7 || toRow > 7) {
+            throw new IllegalArgumentException("Bad move: " + text);
+        }
+
+        String promotion = null;
+        if (text.length() == 5) {
+            switch (text.charAt(4)) {
+                case 'q': promotion = "queen"; break;
+                case 'r': promotion = "rook"; break;
+                case 'b': promotion = "bishop"; break;
+                case 'n': promotion = "knight"; break;
+                default: throw new IllegalArgumentException("Bad move: " + text);
+            }
+        }
+        return new Move(fromRow, fromCol, toRow, toCol, promotion);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Move)) return false;
+        Move other = (Move) o;
+        return fromRow == other.fromRow && fromCol == other.fromCol
+                && toRow == other.toRow && toCol == other.toCol
+                && (promotion == null ? other.promotion == null : promotion.equals(other.promotion));
+    }
+
+    @Override
+    public int hashCode() {
+        int h = ((fromRow * 8 + fromCol) * 64 + toRow * 8 + toCol);
+        return promotion == null ? h : h * 31 + promotion.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        String s = "" + (char) ('a' + fromCol) + (8 - fromRow) + (char) ('a' + toCol) + (8 - toRow);
+        return promotion == null ? s : s + promotion.charAt(promotion.equals("knight") ? 1 : 0);
+    }
+}
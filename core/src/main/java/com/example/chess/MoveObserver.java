@@ -0,0 +1,21 @@
+package com.example.chess;
+
+/**
+ * Follows the moves played on a {@link ChessGame}, for state that is cheaper to update move by
+ * move than to rebuild from the board. Called on the thread using the game.
+ */
+public interface MoveObserver {
+    /**
+     * A legal move has been played; the board already shows its result.
+     *
+     * @param piece    the piece that moved, before any promotion
+     * @param captured the piece that stood on the target square, or {@link ChessGame#EMPTY}
+     */
+    void onMove(ChessGame game, int move, byte piece, byte captured);
+
+    /** The last move is about to be taken back. */
+    void onUndo(ChessGame game);
+
+    /** The board was edited outside of a move; anything derived from it must be rebuilt. */
+    void onReset(ChessGame game);
+}
@@ -0,0 +1,82 @@
+package com.example.chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Legal moves and status of one position, computed once so that the UI can answer touches and
+ * draw frames with lookups. Immutable; castling is listed as the king's two-square move.
+ */
+public final class MoveTable {
+    private static final int[] NO_TARGETS = new int[0];
+
+    private final long hash;
+    private final int[][] targets;
+    private final int legalMoveCount;
+    private final boolean inCheck, draw;
+
+    private MoveTable(long hash, int[][] targets, int legalMoveCount, boolean inCheck, boolean draw) {
+        this.hash = hash;
+        this.targets = targets;
+        this.legalMoveCount = legalMoveCount;
+        this.inCheck = inCheck;
+        this.draw = draw;
+    }
+
+    public static MoveTable of(Position position) {
+        ChessGame game = position.toGame();
+        int[] moves = new int[256];
+        int count = game.generateMoves(moves, false);
+
+        // Legal destinations per origin square; promotions to different pieces share one
+        int[][] byFrom = new int[64][];
+        int[] sizes = new int[64];
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            if (!game.doMove(moves[i])) continue;
+            game.undoMove();
+            legal++;
+            int from = Move.packedFrom(moves[i]), to = Move.packedTo(moves[i]);
+            if (byFrom[from] == null) byFrom[from] = new int[28];
+            if (sizes[from] > 0 && byFrom[from][sizes[from] - 1] == to) continue;
+            byFrom[from][sizes[from]++] = to;
+        }
+
+        int[][] targets = new int[64][];
+        for (int sq = 0; sq < 64; sq++) {
+            targets[sq] = sizes[sq] == 0 ? NO_TARGETS : Arrays.copyOf(byFrom[sq], sizes[sq]);
+        }
+        return new MoveTable(position.getHash(), targets, legal, game.isInCheck(), game.isDraw());
+    }
+
+    /** Hash of the position this table describes. */
+    public long getHash() {
+        return hash;
+    }
+
+    /** Legal destinations of the piece on a square as {row, col} pairs, like {@link ChessGame#getValidMoves}. */
+    public List<int[]> getMoves(int row, int col) {
+        int[] squares = targets[row * ChessGame.BOARD_SIZE + col];
+        List<int[]> moves = new ArrayList<>(squares.length);
+        for (int to : squares) moves.add(new int[]{to >> 3, to & 7});
+        return moves;
+    }
+
+    public boolean isInCheck() {
+        return inCheck;
+    }
+
+    public boolean isCheckmate() {
+        return inCheck && legalMoveCount == 0;
+    }
+
+    public boolean isStalemate() {
+        return !inCheck && legalMoveCount == 0;
+    }
+
+    /** Drawn by the fifty-move rule, repetition or insufficient material. */
+    public boolean isDraw() {
+        return draw;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.chess;
+
+/** Standard algebraic notation (SAN) as used in PGN game records. */
+public final class Notation {
+    private static final String PIECE_LETTERS = " NBRQK";
+
+    private Notation() {
+    }
+
+    /** Returns the SAN of a legal packed move in the game's current position, e.g. "Nbd7", "exd6", "O-O+". */
+    public static String toSan(ChessGame game, int move) {
+        int from = Move.packedFrom(move), to = Move.packedTo(move), promotion = Move.packedPromotion(move);
+        byte piece = game.getPieceCode(from);
+        int type = piece & 7;
+        StringBuilder san = new StringBuilder(8);
+
+        if (type == ChessGame.KING && Math.abs(to - from) == 2) {
+            san.append(to > from ? "O-O" : "O-O-O");
+        } else {
+            boolean capture = game.getPieceCode(to) != ChessGame.EMPTY
+                    || (type == ChessGame.PAWN && to == game.getEnPassantSquare());
+            if (type == ChessGame.PAWN) {
+                if (capture) san.append(file(from)).append('x');
+                san.append(file(to)).append(rank(to));
+                if (promotion != 0) san.append('=').append(PIECE_LETTERS.charAt(promotion - 1));
+            } else {
+                san.append(PIECE_LETTERS.charAt(type - 1));
+                appendDisambiguation(san, game, move, piece);
+                if (capture) san.append('x');
+                san.append(file(to)).append(rank(to));
+            }
+        }
+
+        game.doMove(move);
+        if (game.isInCheck()) {
+            san.append(hasLegalMove(game) ? '+' : '#');
+        }
+        game.undoMove();
+        return san.toString();
+    }
+
+    /**
+     * Finds the legal packed move written as {@code san} in the game's current position. Check
+     * and annotation suffixes are ignored, and castling may be written with zeros.
+     *
+     * @throws IllegalArgumentException if the text is malformed, or names no legal move or more than one
+     */
+    public static int fromSan(ChessGame game, String san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) end--;
+        String text = san.substring(0, end);
+
+        int type, promotion = 0, to;
+        int fromFile = -1, fromRank = -1;
+        if (text.equals("O-O") || text.equals("0-0") || text.equals("O-O-O") || text.equals("0-0-0")) {
+            int row = game.isWhiteTurn() ? 7 : 0;
+            type = ChessGame.KING;
+            fromFile = 4;
+            fromRank = row;
+            to = row * 8 + (text.length() == 3 ? 6 : 2);
+        } else {
+            int i = 0;
+            type = text.isEmpty() ? -1 : PIECE_LETTERS.indexOf(text.charAt(0)) + 1;
+            if (type > 1) {
+                i++;
+            } else {
+                type = ChessGame.PAWN;
+            }
+            int letter = type == ChessGame.PAWN && !text.isEmpty() ? PIECE_LETTERS.indexOf(text.charAt(text.length() - 1)) : -1;
+            if (letter > 0) {
+                // "e8=Q", or "e8Q" as some sources write it
+                promotion = letter + 1;
+                if (promotion == ChessGame.KING) throw new IllegalArgumentException("Bad SAN: " + san);
+                int cut = text.length() >= 2 && text.charAt(text.length() - 2) == '=' ? 2 : 1;
+                text = text.substring(0, text.length() - cut);
+            }
+            if (text.length() - i < 2) throw new IllegalArgumentException("Bad SAN: " + san);
+            to = parseSquare(text, text.length() - 2, san);
+            for (int j = i; j < text.length() - 2; j++) {
+                char c = text.charAt(j);
+                if (c >= 'a' && c <= 'h') fromFile = c - 'a';
+                else if (c >= '1' && c <= '8') fromRank = '8' - c;
+                else if (c != 'x') throw new IllegalArgumentException("Bad SAN: " + san);
+            }
+        }
+
+        int found = 0;
+        int[] moves = new int[256];
+        int count = game.generateMoves(moves, false);
+        for (int k = 0; k < count; k++) {
+            int move = moves[k];
+            int from = Move.packedFrom(move);
+            if (Move.packedTo(move) != to || Move.packedPromotion(move) != promotion) continue;
+            if ((game.getPieceCode(from) & 7) != type) continue;
+            if ((fromFile >= 0 && (from & 7) != fromFile) || (fromRank >= 0 && (from >> 3) != fromRank)) continue;
+            if (!game.doMove(move)) continue;
+            game.undoMove();
+            if (found != 0) throw new IllegalArgumentException("Ambiguous SAN: " + san);
+            found = move;
+        }
+        if (found == 0) throw new IllegalArgumentException("Illegal SAN: " + san);
+        return found;
+    }
+
+    private static int parseSquare(String text, int index, String san) {
+        int col = text.charAt(index) - 'a', row = '8' - text.charAt(index + 1);
+        if (col < 0 || col > 7 || row < 0 || row > 7) throw new IllegalArgumentException("Bad SAN: " + san);
+        return row * 8 + col;
+    }
+
+    private static void appendDisambiguation(StringBuilder san, ChessGame game, int move, byte piece) {
+        int from = Move.packedFrom(move), to = Move.packedTo(move);
+        boolean ambiguous = false, sameFile = false, sameRank = false;
+
+        int[] moves = new int[256];
+        int count = game.generateMoves(moves, false);
+        for (int i = 0; i < count; i++) {
+            int other = Move.packedFrom(moves[i]);
+            if (other == from || Move.packedTo(moves[i]) != to || game.getPieceCode(other) != piece) continue;
+            if (!game.doMove(moves[i])) continue;
+            game.undoMove();
+            ambiguous = true;
+            if ((other & 7) == (from & 7)) sameFile = true;
+            if ((other >> 3) == (from >> 3)) sameRank = true;
+        }
+
+        if (!ambiguous) return;
+        if (!sameFile) {
+            san.append(file(from));
+        } else if (!sameRank) {
+            san.append(rank(from));
+        } else {
+            san.append(file(from)).append(rank(from));
+        }
+    }
+
+    static boolean hasLegalMove(ChessGame game) {
+        int[] moves = new int[256];
+        int count = game.generateMoves(moves, false);
+        for (int i = 0; i < count; i++) {
+            if (game.doMove(moves[i])) {
+                game.undoMove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static char file(int square) {
+        return (char) ('a' + (square & 7));
+    }
+
+    private static char rank(int square) {
+        return (char) ('8' - (square >> 3));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.chess;
+
+import java.util.List;
+
+/**
+ * Immutable snapshot of a {@link ChessGame} position. A game publishes a new snapshot each time
+ * a move is applied (see {@link ChessGame#getSnapshot}), so background threads can read the
+ * live position without locks while the owning thread keeps playing.
+ *
+ * <p>Anything that needs the rules, such as listing moves or searching, works on a fresh game
+ * from {@link #toGame}, which belongs to the caller alone.
+ */
+public final class Position {
+    final byte[] board;
+    final boolean whiteToMove;
+    final byte castlingRights;
+    final byte enPassantSquare;
+    final long hash;
+    final int halfmoveClock;
+    final int ply;
+    // Hashes of the positions since the last capture or pawn move, oldest first
+    final long[] previousHashes;
+
+    Position(byte[] board, boolean whiteToMove, byte castlingRights, byte enPassantSquare, long hash,
+             int halfmoveClock, int ply, long[] previousHashes) {
+        this.board = board;
+        this.whiteToMove = whiteToMove;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.hash = hash;
+        this.halfmoveClock = halfmoveClock;
+        this.ply = ply;
+        this.previousHashes = previousHashes;
+    }
+
+    public String getPieceAt(int row, int col) {
+        return ChessGame.pieceName(board[row * ChessGame.BOARD_SIZE + col]);
+    }
+
+    /** Returns the piece code on a square (0-63, a8 first), or {@link ChessGame#EMPTY}. */
+    public byte getPieceCode(int square) {
+        return board[square];
+    }
+
+    public boolean isWhiteTurn() {
+        return whiteToMove;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /** Same as {@link ChessGame#getHash} for the game this was taken from. */
+    public long getHash() {
+        return hash;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return ply / 2 + 1;
+    }
+
+    public String toFen() {
+        return ChessGame.toFen(board, whiteToMove, castlingRights, enPassantSquare, halfmoveClock, getFullmoveNumber());
+    }
+
+    /**
+     * Returns a new game set up at this position. It knows the positions since the last capture
+     * or pawn move, so repetitions are still detected, but it cannot take back moves played
+     * before the snapshot.
+     */
+    public ChessGame toGame() {
+        return new ChessGame(this);
+    }
+
+    public List<Move> getLegalMoves() {
+        return toGame().getLegalMoves();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.chess.engine;
+
+import com.example.chess.Position;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Analyzes a position in the background until told otherwise, reporting its best lines after
+ * every depth. {@link #analyze} drops the running analysis at once and starts on the new
+ * position, so it can be called after every move.
+ */
+public class Analyzer {
+    /** Receives results on the analysis thread. */
+    public interface Listener {
+        void onAnalysis(Analysis analysis);
+    }
+
+    /** One candidate line, scored from white's point of view. */
+    public static final class Line {
+        public final int score;
+        public final int[] pv;
+
+        Line(int score, int[] pv) {
+            this.score = score;
+            this.pv = pv;
+        }
+
+        public boolean isMate() {
+            return Search.isMateScore(score);
+        }
+    }
+
+    /** The best lines found so far for one position, best first. */
+    public static final class Analysis {
+        public final long hash;
+        public final int depth;
+        public final List<Line> lines;
+
+        Analysis(long hash, int depth, List<Line> lines) {
+            this.hash = hash;
+            this.depth = depth;
+            this.lines = lines;
+        }
+    }
+
+    private final Search search;
+    private final BackgroundWorker worker = new BackgroundWorker("analysis");
+    private final int lineCount;
+    private final Listener listener;
+
+    /**
+     * @param threads   search threads, all started from the low-priority analysis thread
+     * @param lineCount number of best lines to report
+     */
+    public Analyzer(Evaluator evaluator, int hashMb, int threads, int lineCount, Listener listener) {
+        this.search = new Search(evaluator, hashMb, 1);
+        this.lineCount = Math.max(1, lineCount);
+        this.listener = listener;
+        // Created from the analysis thread so the helper threads inherit its priority
+        worker.execute(CancellationToken.NONE, () -> search.setThreads(threads));
+    }
+
+    /** Stops analyzing the previous position and starts on {@code position}. */
+    public void analyze(Position position) {
+        CancellationToken token = cancel();
+        worker.execute(token, () -> {
+            SearchLimits limits = new SearchLimits();
+            limits.infinite = true;
+            limits.multiPv = lineCount;
+
+            boolean white = position.isWhiteTurn();
+            Line[] lines = new Line[lineCount];
+            search.search(position.toGame(), limits, (depth, line, score, nodes, elapsedMs, pv) -> {
+                if (token.isCancelled()) return;
+                lines[line - 1] = new Line(white ? score : -score, pv);
+                List<Line> found = new ArrayList<>(lineCount);
+                for (Line l : lines) {
+                    if (l != null) found.add(l);
+                }
+                listener.onAnalysis(new Analysis(position.getHash(), depth, Collections.unmodifiableList(found)));
+            }, token);
+        });
+    }
+
+    public void stop() {
+        cancel();
+    }
+
+    public void shutdown() {
+        worker.shutdown();
+        search.stop();
+    }
+
+    private CancellationToken cancel() {
+        CancellationToken token = worker.next();
+        search.stop();
+        return token;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.chess.engine;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One low-priority daemon thread for work that only matters for the latest request, such as
+ * precomputing for the position on the board. {@link #next} cancels the previous request and
+ * returns the token of the new one; queued tasks of cancelled requests are skipped.
+ */
+public final class BackgroundWorker {
+    private final ExecutorService executor;
+    // Bumped for every new request; tokens of older generations are cancelled
+    private final AtomicLong generation = new AtomicLong();
+
+    public BackgroundWorker(String name) {
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /** Cancels the current request and returns the token of a new one. */
+    public CancellationToken next() {
+        return new CancellationToken(generation, generation.incrementAndGet());
+    }
+
+    /** Cancels the current request without starting another. */
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+
+    /** Runs {@code task} after those already queued, unless {@code token} is cancelled by then. */
+    public void execute(CancellationToken token, Runnable task) {
+        executor.execute(() -> {
+            if (!token.isCancelled()) task.run();
+        });
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
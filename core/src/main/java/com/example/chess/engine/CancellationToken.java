@@ -0,0 +1,35 @@
+package com.example.chess.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tells background work whether its result is still wanted. Tokens are handed out by a
+ * {@link BackgroundWorker}, where starting the next request cancels every earlier token, or
+ * made on their own with {@link #create} and cancelled with {@link #cancel}.
+ */
+public final class CancellationToken {
+    /** A token that is never cancelled. */
+    public static final CancellationToken NONE = new CancellationToken(new AtomicLong(), 0);
+
+    private final AtomicLong generation;
+    private final long issued;
+
+    CancellationToken(AtomicLong generation, long issued) {
+        this.generation = generation;
+        this.issued = issued;
+    }
+
+    /** A new token that only {@link #cancel} cancels. */
+    public static CancellationToken create() {
+        return new CancellationToken(new AtomicLong(), 0);
+    }
+
+    /** Cancels this token; a later token of the same worker is left alone. Does nothing to {@link #NONE}. */
+    public void cancel() {
+        if (this != NONE) generation.compareAndSet(issued, issued + 1);
+    }
+
+    public boolean isCancelled() {
+        return generation.get() != issued;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.chess.engine;
+
+import com.example.chess.ChessGame;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Material and piece-square evaluation. All weights live in one int table: six piece values
+ * (pawn to king) followed by six 64-entry piece-square tables, laid out from a8 to h1 for
+ * white and mirrored for black. This is the default evaluator and is cheap enough for phones.
+ *
+ * <p>Weight files are text in the same order, whitespace-separated, with everything after a '#'
+ * on a line ignored; {@link #saveWeights} writes one table row per line.
+ */
+public class ClassicEvaluator implements Evaluator {
+    public static final int MATERIAL = 0;
+    public static final int PIECE_SQUARE = 6;
+    public static final int WEIGHT_COUNT = PIECE_SQUARE + 6 * 64;
+
+    private static final String[] PIECE_NAMES = {"Pawn", "Knight", "Bishop", "Rook", "Queen", "King"};
+
+    private static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+
+    private static final int[] PAWN_TABLE = {
+             0,  0,  0,  0,  0,  0,  0,  0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+             5,  5, 10, 25, 25, 10,  5,  5,
+             0,  0,  0, 20, 20,  0,  0,  0,
+             5, -5,-10,  0,  0,-10, -5,  5,
+             5, 10, 10,-20,-20, 10, 10,  5,
+             0,  0,  0,  0,  0,  0,  0,  0
+    };
+    private static final int[] KNIGHT_TABLE = {
+            -50,-40,-30,-30,-30,-30,-40,-50,
+            -40,-20,  0,  0,  0,  0,-20,-40,
+            -30,  0, 10, 15, 15, 10,  0,-30,
+            -30,  5, 15, 20, 20, 15,  5,-30,
+            -30,  0, 15, 20, 20, 15,  0,-30,
+            -30,  5, 10, 15, 15, 10,  5,-30,
+            -40,-20,  0,  5,  5,  0,-20,-40,
+            -50,-40,-30,-30,-30,-30,-40,-50
+    };
+    private static final int[] BISHOP_TABLE = {
+            -20,-10,-10,-10,-10,-10,-10,-20,
+            -10,  0,  0,  0,  0,  0,  0,-10,
+            -10,  0,  5, 10, 10,  5,  0,-10,
+            -10,  5,  5, 10, 10,  5,  5,-10,
+            -10,  0, 10, 10, 10, 10,  0,-10,
+            -10, 10, 10, 10, 10, 10, 10,-10,
+            -10,  5,  0,  0,  0,  0,  5,-10,
+            -20,-10,-10,-10,-10,-10,-10,-20
+    };
+    private static final int[] ROOK_TABLE = {
+              0,  0,  0,  0,  0,  0,  0,  0,
+              5, 10, 10, 10, 10, 10, 10,  5,
+             -5,  0,  0,  0,  0,  0,  0, -5,
+             -5,  0,  0,  0,  0,  0,  0, -5,
+             -5,  0,  0,  0,  0,  0,  0, -5,
+             -5,  0,  0,  0,  0,  0,  0, -5,
+             -5,  0,  0,  0,  0,  0,  0, -5,
+              0,  0,  0,  5,  5,  0,  0,  0
+    };
+    private static final int[] QUEEN_TABLE = {
+            -20,-10,-10, -5, -5,-10,-10,-20,
+            -10,  0,  0,  0,  0,  0,  0,-10,
+            -10,  0,  5,  5,  5,  5,  0,-10,
+             -5,  0,  5,  5,  5,  5,  0, -5,
+              0,  0,  5,  5,  5,  5,  0, -5,
+            -10,  5,  5,  5,  5,  5,  0,-10,
+            -10,  0,  5,  0,  0,  0,  0,-10,
+            -20,-10,-10, -5, -5,-10,-10,-20
+    };
+    private static final int[] KING_TABLE = {
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -20,-30,-30,-40,-40,-30,-30,-20,
+            -10,-20,-20,-20,-20,-20,-20,-10,
+             20, 20,  0,  0,  0,  0, 20, 20,
+             20, 30, 10,  0,  0, 10, 30, 20
+    };
+
+    // Piece value plus square bonus, indexed by piece code and square, white's point of view
+    private final int[][] pieceSquare = new int[16][64];
+    private final int[] weights;
+
+    public ClassicEvaluator() {
+        this(defaultWeights());
+    }
+
+    public ClassicEvaluator(int[] weights) {
+        if (weights.length != WEIGHT_COUNT) {
+            throw new IllegalArgumentException("Expected " + WEIGHT_COUNT + " weights, got " + weights.length);
+        }
+        this.weights = weights.clone();
+        for (int type = ChessGame.PAWN; type <= ChessGame.KING; type++) {
+            for (int sq = 0; sq < 64; sq++) {
+                int value = weights[MATERIAL + type - 1];
+                pieceSquare[type][sq] = value + weights[PIECE_SQUARE + (type - 1) * 64 + sq];
+                pieceSquare[ChessGame.BLACK | type][sq] = -(value + weights[PIECE_SQUARE + (type - 1) * 64 + (sq ^ 56)]);
+            }
+        }
+    }
+
+    public static int[] defaultWeights() {
+        int[] weights = new int[WEIGHT_COUNT];
+        System.arraycopy(PIECE_VALUES, 0, weights, MATERIAL, PIECE_VALUES.length);
+        int[][] tables = {PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE, KING_TABLE};
+        for (int i = 0; i < tables.length; i++) {
+            System.arraycopy(tables[i], 0, weights, PIECE_SQUARE + i * 64, 64);
+        }
+        return weights;
+    }
+
+    public static int[] loadWeights(File file) throws IOException {
+        int[] weights = new int[WEIGHT_COUNT];
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comment = line.indexOf('#');
+                if (comment >= 0) line = line.substring(0, comment);
+                for (String token : line.trim().split("\\s+")) {
+                    if (token.isEmpty()) continue;
+                    if (count == WEIGHT_COUNT) throw new IOException("More than " + WEIGHT_COUNT + " weights: " + file);
+                    try {
+                        weights[count++] = Integer.parseInt(token);
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Bad weight '" + token + "': " + file);
+                    }
+                }
+            }
+        }
+        if (count != WEIGHT_COUNT) throw new IOException("Expected " + WEIGHT_COUNT + " weights, got " + count + ": " + file);
+        return weights;
+    }
+
+    public static void saveWeights(int[] weights, File file) throws IOException {
+        if (weights.length != WEIGHT_COUNT) {
+            throw new IllegalArgumentException("Expected " + WEIGHT_COUNT + " weights, got " + weights.length);
+        }
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            out.println("# Material: pawn, knight, bishop, rook, queen, king");
+            for (int i = 0; i < 6; i++) out.printf(" %4d", weights[MATERIAL + i]);
+            out.println();
+            for (int type = 0; type < 6; type++) {
+                out.println("# " + PIECE_NAMES[type] + ", a8 to h1");
+                for (int sq = 0; sq < 64; sq++) {
+                    out.printf(" %4d", weights[PIECE_SQUARE + type * 64 + sq]);
+                    if ((sq & 7) == 7) out.println();
+                }
+            }
+            if (out.checkError()) throw new IOException("Cannot write " + file);
+        }
+    }
+
+    public int[] getWeights() {
+        return weights.clone();
+    }
+
+    @Override
+    public int evaluate(ChessGame game) {
+        int score = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            score += pieceSquare[game.getPieceCode(sq)][sq];
+        }
+        return game.isWhiteTurn() ? score : -score;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.chess.engine;
+
+import com.example.chess.ChessGame;
+
+/** Static evaluation of a position, used at the leaves of the search. */
+public interface Evaluator {
+    /** Returns the score in centipawns from the point of view of the side to move. */
+    int evaluate(ChessGame game);
+
+    /**
+     * Returns an evaluator for another thread. Evaluators that keep state between calls return a
+     * fresh instance; stateless ones may return themselves.
+     */
+    default Evaluator copy() {
+        return this;
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.chess.engine;
+
+import com.example.chess.ChessGame;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Finds forced checkmates with depth-first proof-number search (df-pn). Only checking moves are
+ * tried for the attacking side, which keeps the tree narrow: every mate whose attacking moves
+ * all give check is found, quiet-move mates are not. Proof and disproof numbers are kept in a
+ * table keyed by position hash and moves left, so transpositions are solved once.
+ *
+ * <p>{@link #solve} finds the shortest such mate of at most the given length, trying each length
+ * in turn, and returns it with the defender's longest resistance. It runs on the caller's thread
+ * and is not reentrant; {@link #stop} may be called from any thread.
+ */
+public class MateSolver {
+    /** Longest mate, in moves of the attacking side, that can be asked for. */
+    public static final int MAX_MOVES = 32;
+
+    private static final int INFINITY = 1 << 28;
+    private static final int CHECK_INTERVAL = 1024;
+    private static final int MAX_PLIES = 2 * MAX_MOVES + 1;
+
+    // Moves left and node type, folded into the position hash for table keys
+    private static final long[] DEPTH_KEYS = new long[2 * (MAX_MOVES + 1)];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x4D415445L);
+        for (int i = 0; i < DEPTH_KEYS.length; i++) DEPTH_KEYS[i] = random.nextLong();
+    }
+
+    /** Outcome of one query. */
+    public static final class Result {
+        public enum Status {
+            /** A mate was found; {@link #line} holds it. */
+            MATE,
+            /** There is no mate by checks within the asked number of moves. */
+            NO_MATE,
+            /** The node limit was reached or the solver was stopped first. */
+            UNKNOWN
+        }
+
+        public final Status status;
+        /** Packed moves from the attacker's first move to the mating move; empty unless one was found. */
+        public final int[] line;
+        public final long nodes;
+
+        Result(Status status, int[] line, long nodes) {
+            this.status = status;
+            this.line = line;
+            this.nodes = nodes;
+        }
+
+        /** Length of the mate in moves of the attacking side, or 0 if none was found. */
+        public int getMoves() {
+            return (line.length + 1) / 2;
+        }
+    }
+
+    private final long[] keys;
+    private final int[] proofs;
+    private final int[] disproofs;
+    private final int mask;
+
+    private final int[][] children = new int[MAX_PLIES][256];
+    private final long[][] childHashes = new long[MAX_PLIES][256];
+
+    private volatile boolean stopped;
+    private CancellationToken token = CancellationToken.NONE;
+    private long nodeLimit = Long.MAX_VALUE;
+    private long nodes;
+    private ChessGame game;
+
+    // Proof and disproof numbers of the node mid() last returned from
+    private int lastProof, lastDisproof;
+
+    public MateSolver(int tableMb) {
+        long entries = Math.max(1024, (long) tableMb * 1024 * 1024 / 16);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        keys = new long[size];
+        proofs = new int[size];
+        disproofs = new int[size];
+        mask = size - 1;
+    }
+
+    /** Gives up once this many nodes have been expanded in one query. */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    /** Forgets all proofs, e.g. before a run of unrelated positions. */
+    public void clear() {
+        Arrays.fill(keys, 0);
+    }
+
+    /**
+     * Looks for a mate by the side to move in at most {@code maxMoves} of its moves. The position
+     * itself is not modified.
+     */
+    public Result solve(ChessGame position, int maxMoves) {
+        return solve(position, maxMoves, CancellationToken.NONE);
+    }
+
+    /**
+     * As {@link #solve(ChessGame, int)}, and also gives up once {@code token} is cancelled,
+     * including before the query starts.
+     */
+    public Result solve(ChessGame position, int maxMoves, CancellationToken token) {
+        if (maxMoves < 1 || maxMoves > MAX_MOVES) {
+            throw new IllegalArgumentException("Mate length must be 1 to " + MAX_MOVES + ": " + maxMoves);
+        }
+        this.token = token;
+        stopped = token.isCancelled();
+        nodes = 0;
+        game = position.copy();
+        try {
+            for (int moves = 1; moves <= maxMoves; moves++) {
+                if (prove(0, moves, true)) {
+                    int[] line = line(moves);
+                    if (line != null) return new Result(Result.Status.MATE, line, nodes);
+                }
+                if (stopped) return new Result(Result.Status.UNKNOWN, new int[0], nodes);
+            }
+            return new Result(Result.Status.NO_MATE, new int[0], nodes);
+        } finally {
+            game = null;
+        }
+    }
+
+    /** Solves the current position; true if proven within {@code remaining} attacking moves. */
+    private boolean prove(int ply, int remaining, boolean attacker) {
+        mid(ply, remaining, attacker, INFINITY, INFINITY);
+        return lastProof == 0;
+    }
+
+    /**
+     * Walks down a proven tree: the attacker picks a move that mates soonest, the defender one
+     * that delays mate longest. Returns null if a proof was lost to the node limit on the way.
+     */
+    private int[] line(int moves) {
+        int[] line = new int[2 * moves - 1];
+        int length = 0;
+        int remaining = moves;
+        while (true) {
+            int attack = 0;
+            int count = expand(length, remaining, true);
+            for (int i = 0; i < count && attack == 0; i++) {
+                game.doMove(children[length][i]);
+                if (prove(length + 1, remaining - 1, false)) attack = children[length][i];
+                game.undoMove();
+            }
+            if (attack == 0) return null;
+            game.doMove(attack);
+            line[length++] = attack;
+            remaining--;
+
+            int defenses = expand(length, Math.max(remaining, 1), false);
+            if (defenses == 0) return Arrays.copyOf(line, length);
+
+            int defense = 0, longest = -1;
+            int[] replies = children[length].clone();
+            for (int i = 0; i < defenses; i++) {
+                game.doMove(replies[i]);
+                // Shortest mate after this reply; the defender prefers the longest
+                for (int left = 1; left <= remaining; left++) {
+                    if (prove(length + 1, left, true)) {
+                        if (left > longest) {
+                            longest = left;
+                            defense = replies[i];
+                        }
+                        break;
+                    }
+                    if (stopped) break;
+                }
+                game.undoMove();
+            }
+            if (defense == 0 || stopped) return null;
+            game.doMove(defense);
+            line[length++] = defense;
+            remaining = longest;
+        }
+    }
+
+    /**
+     * Expands the node at {@code ply} until its proof number reaches {@code proofLimit} or its
+     * disproof number reaches {@code disproofLimit}, leaving both in lastProof and lastDisproof.
+     * {@code attacker} tells whether the attacking side is to move, {@code remaining} how many
+     * attacking moves are left including this one.
+     */
+    private void mid(int ply, int remaining, boolean attacker, int proofLimit, int disproofLimit) {
+        long key = game.getHash() ^ DEPTH_KEYS[2 * remaining + (attacker ? 1 : 0)];
+        int index = (int) key & mask;
+        if (keys[index] == key && (proofs[index] >= proofLimit || disproofs[index] >= disproofLimit)) {
+            lastProof = proofs[index];
+            lastDisproof = disproofs[index];
+            return;
+        }
+
+        if (++nodes % CHECK_INTERVAL == 0 && (nodes >= nodeLimit || token.isCancelled())) stopped = true;
+        int count = expand(ply, remaining, attacker);
+        int proof, disproof;
+        if (count == 0) {
+            // Out of checks or out of moves: mated only if the defender is in check
+            boolean mated = !attacker && game.isInCheck();
+            proof = mated ? 0 : INFINITY;
+            disproof = mated ? INFINITY : 0;
+        } else if (!attacker && remaining == 0) {
+            proof = INFINITY;
+            disproof = 0;
+        } else {
+            int[] moves = children[ply];
+            long[] hashes = childHashes[ply];
+            int childRemaining = attacker ? remaining - 1 : remaining;
+            long childKey = DEPTH_KEYS[2 * childRemaining + (attacker ? 0 : 1)];
+            while (true) {
+                // OR node for the attacker, AND node for the defender
+                int best = 0, bestProof = 0, bestDisproof = 0, second = INFINITY;
+                proof = attacker ? INFINITY : 0;
+                disproof = attacker ? 0 : INFINITY;
+                for (int i = 0; i < count; i++) {
+                    long k = hashes[i] ^ childKey;
+                    int slot = (int) k & mask;
+                    int childProof = keys[slot] == k ? proofs[slot] : 1;
+                    int childDisproof = keys[slot] == k ? disproofs[slot] : 1;
+                    int order = attacker ? childProof : childDisproof;
+                    int bestOrder = attacker ? bestProof : bestDisproof;
+                    if (i == 0 || order < bestOrder) {
+                        if (i > 0) second = bestOrder;
+                        best = i;
+                        bestProof = childProof;
+                        bestDisproof = childDisproof;
+                    } else if (order < second) {
+                        second = order;
+                    }
+                    if (attacker) {
+                        proof = Math.min(proof, childProof);
+                        disproof = Math.min(INFINITY, disproof + childDisproof);
+                    } else {
+                        proof = Math.min(INFINITY, proof + childProof);
+                        disproof = Math.min(disproof, childDisproof);
+                    }
+                }
+                if (proof >= proofLimit || disproof >= disproofLimit || stopped) break;
+
+                int childProofLimit, childDisproofLimit;
+                if (attacker) {
+                    childProofLimit = Math.min(proofLimit, second + 1);
+                    childDisproofLimit = Math.min(INFINITY, disproofLimit - disproof + bestDisproof);
+                } else {
+                    childProofLimit = Math.min(INFINITY, proofLimit - proof + bestProof);
+                    childDisproofLimit = Math.min(disproofLimit, second + 1);
+                }
+                game.doMove(moves[best]);
+                mid(ply + 1, childRemaining, !attacker, childProofLimit, childDisproofLimit);
+                game.undoMove();
+            }
+        }
+
+        keys[index] = key;
+        proofs[index] = proof;
+        disproofs[index] = disproof;
+        lastProof = proof;
+        lastDisproof = disproof;
+    }
+
+    /**
+     * Lists the moves searched from the current position into {@code children[ply]}, with the
+     * hash each one leads to: checking moves for the attacker, all legal moves for the defender.
+     * For a defender with no attacking moves left to follow, only the first legal move is listed.
+     */
+    private int expand(int ply, int remaining, boolean attacker) {
+        int[] moves = children[ply];
+        long[] hashes = childHashes[ply];
+        if (attacker && remaining == 0) return 0;
+        int pseudoLegal = game.generateMoves(moves, false);
+        int count = 0;
+        for (int i = 0; i < pseudoLegal; i++) {
+            int move = moves[i];
+            if (!game.doMove(move)) continue;
+            boolean keep = !attacker || game.isInCheck();
+            long hash = game.getHash();
+            game.undoMove();
+            if (!keep) continue;
+            moves[count] = move;
+            hashes[count++] = hash;
+            // With no attacking moves left, one legal reply is enough to escape
+            if (!attacker && remaining == 0) break;
+        }
+        return count;
+    }
+}
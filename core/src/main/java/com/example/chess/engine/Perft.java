@@ -0,0 +1,193 @@
+package com.example.chess.engine;
+
+import com.example.chess.ChessGame;
+import com.example.chess.Move;
+import com.example.chess.metrics.Metrics;
+import com.example.chess.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the legal move tree (perft), the standard check of move generation.
+ * Large counts are split over a {@link ForkJoinPool}: every subtree deeper than the split depth
+ * becomes its own task working on its own copy of the position. An optional {@link Cache}
+ * shares subtree counts between all workers.
+ */
+public class Perft {
+    private final ForkJoinPool pool;
+    private final Cache cache;
+    private final int splitDepth;
+
+    /**
+     * @param splitDepth subtrees with more than this many plies left are split into tasks
+     * @param cacheMb    size of the shared subtree cache, or 0 for none
+     */
+    public Perft(ForkJoinPool pool, int splitDepth, int cacheMb) {
+        this.pool = pool;
+        this.splitDepth = Math.max(1, splitDepth);
+        this.cache = cacheMb > 0 ? new Cache(cacheMb) : null;
+    }
+
+    /** Counts leaves {@code depth} plies below {@code position}, which is not modified. */
+    public long count(ChessGame position, int depth) {
+        if (depth <= 0) return 1;
+        return pool.invoke(new SubtreeTask(counted(position), depth));
+    }
+
+    /** Counts per root move ("divide"), in move generation order. */
+    public List<Result> divide(ChessGame position, int depth) {
+        ChessGame game = counted(position);
+        List<SubtreeTask> tasks = new ArrayList<>();
+        List<Move> roots = new ArrayList<>();
+        int[] moves = new int[256];
+        int count = game.generateMoves(moves, false);
+        for (int i = 0; i < count; i++) {
+            if (!game.doMove(moves[i])) continue;
+            tasks.add(new SubtreeTask(game.copy(), depth - 1));
+            roots.add(Move.unpack(moves[i]));
+            game.undoMove();
+        }
+        game.flushCounts(MetricsRegistry.get());
+
+        // Submitting all roots first lets them run side by side
+        for (SubtreeTask task : tasks) pool.execute(task);
+        List<Result> results = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            results.add(new Result(roots.get(i), tasks.get(i).join()));
+        }
+        return results;
+    }
+
+    /** A copy of {@code position} that counts its move generation if metrics are enabled. */
+    private static ChessGame counted(ChessGame position) {
+        ChessGame game = position.copy();
+        game.setCounting(MetricsRegistry.get().isEnabled());
+        return game;
+    }
+
+    /** Single-threaded perft over {@code game}, which is left as it was found. */
+    public static long countSequential(ChessGame game, int depth) {
+        return countSequential(game, depth, null);
+    }
+
+    private static long countSequential(ChessGame game, int depth, Cache cache) {
+        if (depth == 0) return 1;
+        long hash = game.getHash();
+        if (cache != null && depth > 1) {
+            long cached = cache.get(hash, depth);
+            if (cached >= 0) return cached;
+        }
+
+        int[] moves = new int[256];
+        int count = game.generateMoves(moves, false);
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            if (!game.doMove(moves[i])) continue;
+            nodes += depth == 1 ? 1 : countSequential(game, depth - 1, cache);
+            game.undoMove();
+        }
+
+        if (cache != null && depth > 1) cache.put(hash, depth, nodes);
+        return nodes;
+    }
+
+    public static final class Result {
+        public final Move move;
+        public final long nodes;
+
+        Result(Move move, long nodes) {
+            this.move = move;
+            this.nodes = nodes;
+        }
+    }
+
+    private final class SubtreeTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final ChessGame game;
+        private final int depth;
+
+        SubtreeTask(ChessGame game, int depth) {
+            this.game = game;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            try {
+                return countSubtree();
+            } finally {
+                game.flushCounts(MetricsRegistry.get());
+            }
+        }
+
+        private long countSubtree() {
+            if (depth <= splitDepth) return countSequential(game, depth, cache);
+
+            long hash = game.getHash();
+            if (cache != null) {
+                long cached = cache.get(hash, depth);
+                if (cached >= 0) return cached;
+            }
+
+            List<SubtreeTask> children = new ArrayList<>();
+            int[] moves = new int[256];
+            int count = game.generateMoves(moves, false);
+            for (int i = 0; i < count; i++) {
+                if (!game.doMove(moves[i])) continue;
+                SubtreeTask child = new SubtreeTask(game.copy(), depth - 1);
+                game.undoMove();
+                child.fork();
+                children.add(child);
+            }
+
+            long nodes = 0;
+            for (SubtreeTask child : children) nodes += child.join();
+            if (cache != null) cache.put(hash, depth, nodes);
+            return nodes;
+        }
+    }
+
+    /**
+     * Lock-free table of subtree counts keyed by position hash and depth. As in the
+     * {@link TranspositionTable}, the key is stored xor-ed with the count so that an entry
+     * torn by concurrent writers is never mistaken for a valid one.
+     */
+    static final class Cache {
+        private final long[] keys;
+        private final long[] counts;
+        private final int mask;
+
+        Cache(int sizeMb) {
+            int size = Integer.highestOneBit((int) Math.min((long) sizeMb * 1024 * 1024 / 16, 1 << 30));
+            keys = new long[size];
+            counts = new long[size];
+            mask = size - 1;
+        }
+
+        long get(long hash, int depth) {
+            long key = key(hash, depth);
+            int index = (int) key & mask;
+            long count = counts[index];
+            if ((keys[index] ^ count) != key) return -1;
+            Metrics metrics = MetricsRegistry.get();
+            if (metrics.isEnabled()) metrics.count(Metrics.Counter.CACHE_HITS, 1);
+            return count;
+        }
+
+        void put(long hash, int depth, long count) {
+            long key = key(hash, depth);
+            int index = (int) key & mask;
+            counts[index] = count;
+            keys[index] = key ^ count;
+        }
+
+        private static long key(long hash, int depth) {
+            // Spread the depth over all bits so equal positions at different depths get different slots
+            return hash ^ (depth * 0x9E3779B97F4A7C15L);
+        }
+    }
+}
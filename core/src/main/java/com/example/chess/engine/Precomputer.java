@@ -0,0 +1,137 @@
+package com.example.chess.engine;
+
+import com.example.chess.ChessGame;
+import com.example.chess.MoveTable;
+import com.example.chess.Position;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Uses the time a player spends thinking. For each new position it builds the {@link MoveTable}
+ * on a background thread and, in games against the engine, searches the engine's replies to the
+ * player's likeliest moves ahead of time, keeping them in a {@link ReplyCache}.
+ *
+ * <p>All work runs on one low-priority thread. Each call to {@link #update} or
+ * {@link #requestReply} abandons whatever was being precomputed for the previous position.
+ */
+public class Precomputer {
+    private final BackgroundWorker worker = new BackgroundWorker("precompute");
+    private final Evaluator evaluator;
+    private final Search search;
+    private final SearchLimits replyLimits;
+    private final ReplyCache replies;
+    private final int candidates;
+
+    private volatile MoveTable moveTable;
+
+    /**
+     * @param replyLimits limits for every engine reply, speculative or not, so both give the same move
+     * @param candidates  number of player moves to precompute replies for
+     * @param cacheSize   replies kept before the least recently used one is dropped
+     */
+    public Precomputer(Evaluator evaluator, SearchLimits replyLimits, int candidates, int cacheSize) {
+        this.evaluator = evaluator;
+        this.search = new Search(evaluator, 16, 1);
+        this.replyLimits = replyLimits;
+        this.candidates = candidates;
+        this.replies = new ReplyCache(cacheSize);
+    }
+
+    /** Returns the move table of the position with {@code hash}, or null if it is not ready yet. */
+    public MoveTable getMoveTable(long hash) {
+        MoveTable table = moveTable;
+        return table != null && table.getHash() == hash ? table : null;
+    }
+
+    /**
+     * Starts precomputing for {@code position}, the player's turn. With {@code speculate}, engine
+     * replies to the player's likeliest moves are searched once the move table is done.
+     */
+    public void update(Position position, boolean speculate) {
+        CancellationToken token = cancel();
+        worker.execute(token, () -> {
+            moveTable = MoveTable.of(position);
+            if (speculate) speculate(position, token);
+        });
+    }
+
+    /**
+     * Finds the engine's move in {@code position} and passes it to {@code callback}, or 0 if
+     * there is none. A precomputed reply is handed over at once on the calling thread; otherwise
+     * the search runs in the background and the callback is made from there.
+     */
+    public void requestReply(Position position, IntConsumer callback) {
+        CancellationToken token = cancel();
+        int cached = replies.get(position.getHash());
+        if (cached != 0) {
+            callback.accept(cached);
+            worker.execute(token, () -> moveTable = MoveTable.of(position));
+            return;
+        }
+        worker.execute(token, () -> {
+            int move = searchReply(position.toGame(), token);
+            if (token.isCancelled()) return;
+            replies.put(position.getHash(), move);
+            callback.accept(move);
+        });
+    }
+
+    public void shutdown() {
+        worker.shutdown();
+        search.stop();
+    }
+
+    private CancellationToken cancel() {
+        CancellationToken token = worker.next();
+        search.stop();
+        return token;
+    }
+
+    /**
+     * Searches the engine's reply from an empty table, so the move depends on the position alone
+     * and a precomputed reply is the one a search at request time would find.
+     */
+    private int searchReply(ChessGame game, CancellationToken token) {
+        search.clear();
+        return search.search(game, replyLimits, null, token);
+    }
+
+    private void speculate(Position position, CancellationToken token) {
+        if (candidates <= 0) return;
+        ChessGame game = position.toGame();
+        int[] moves = new int[256];
+        int count = game.generateMoves(moves, false);
+
+        // The likeliest player moves, guessed as the ones that leave the best static evaluation
+        int[] best = new int[candidates];
+        int[] bestScores = new int[candidates];
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            if (!game.doMove(moves[i])) continue;
+            int score = -evaluator.evaluate(game);
+            game.undoMove();
+            if (found == candidates && score <= bestScores[found - 1]) continue;
+            int slot = found < candidates ? found++ : candidates - 1;
+            while (slot > 0 && bestScores[slot - 1] < score) {
+                best[slot] = best[slot - 1];
+                bestScores[slot] = bestScores[slot - 1];
+                slot--;
+            }
+            best[slot] = moves[i];
+            bestScores[slot] = score;
+        }
+
+        for (int i = 0; i < found; i++) {
+            if (token.isCancelled()) return;
+            game.doMove(best[i]);
+            long hash = game.getHash();
+            if (!replies.contains(hash)) {
+                int reply = searchReply(game, token);
+                // A search cut short by a newer position is not the reply the engine would play
+                if (token.isCancelled()) return;
+                replies.put(hash, reply);
+            }
+            game.undoMove();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.chess.engine;
+
+import com.example.chess.metrics.Metrics;
+import com.example.chess.metrics.MetricsRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Engine replies keyed by the hash of the position they answer, holding at most a fixed number
+ * of entries and evicting the least recently used one first. Thread-safe.
+ */
+public final class ReplyCache {
+    private final Map<Long, Integer> replies;
+
+    public ReplyCache(int capacity) {
+        replies = new LinkedHashMap<Long, Integer>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /** Returns the packed reply stored for {@code hash}, or 0 if there is none. */
+    public synchronized int get(long hash) {
+        Integer move = replies.get(hash);
+        if (move == null) return 0;
+        MetricsRegistry.get().count(Metrics.Counter.CACHE_HITS, 1);
+        return move;
+    }
+
+    public synchronized boolean contains(long hash) {
+        return replies.containsKey(hash);
+    }
+
+    public synchronized void put(long hash, int move) {
+        replies.put(hash, move);
+    }
+
+    public synchronized int size() {
+        return replies.size();
+    }
+
+    public synchronized void clear() {
+        replies.clear();
+    }
+}
@@ -0,0 +1,486 @@
+package com.example.chess.engine;
+
+import com.example.chess.ChessGame;
+import com.example.chess.Move;
+import com.example.chess.metrics.Metrics;
+import com.example.chess.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Iterative-deepening alpha-beta search over a {@link ChessGame}. With more than one thread,
+ * helper threads search the same position on their own copies and share results through the
+ * {@link TranspositionTable} (lazy SMP); only the main thread reports progress.
+ *
+ * <p>{@link #search} runs on the caller's thread and is not reentrant. {@link #stop} may be
+ * called from any thread while a search is running.
+ */
+public class Search {
+    public static final int MATE = 30000;
+    public static final int MAX_PLY = 100;
+    private static final int INFINITY = 32000;
+
+    private static final int[] ORDER_VALUES = {0, 100, 320, 330, 500, 900, 2000};
+
+    private Evaluator evaluator;
+    private TranspositionTable table;
+    private int threadCount;
+    private ExecutorService helperPool;
+
+    private volatile boolean stopped;
+    private volatile boolean pondering;
+    private final TimeManager timeManager = new TimeManager();
+    private long nodeLimit;
+    private CancellationToken token = CancellationToken.NONE;
+    private SearchLimits limits;
+    private boolean infinite;
+    private Worker[] workers = new Worker[0];
+
+    public Search() {
+        this(new ClassicEvaluator(), 16, 1);
+    }
+
+    public Search(Evaluator evaluator, int hashMb, int threads) {
+        this.evaluator = evaluator;
+        this.table = new TranspositionTable(hashMb);
+        setThreads(threads);
+    }
+
+    /** Evaluates with {@code evaluator} from the next search on; each thread gets its own copy. */
+    public void setEvaluator(Evaluator evaluator) {
+        this.evaluator = evaluator;
+        workers = new Worker[0];
+    }
+
+    public void setHashSize(int hashMb) {
+        table = new TranspositionTable(hashMb);
+    }
+
+    public void setThreads(int threads) {
+        threadCount = Math.max(1, threads);
+        if (helperPool != null) helperPool.shutdown();
+        helperPool = threadCount > 1 ? Executors.newFixedThreadPool(threadCount - 1, r -> {
+            Thread t = new Thread(r, "search-helper");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+    }
+
+    /** Time kept back on the clock for every move; see {@link TimeManager}. */
+    public void setMoveOverhead(long moveOverheadMs) {
+        timeManager.setMoveOverhead(moveOverheadMs);
+    }
+
+    /** Forgets everything learned in earlier searches, e.g. for a new game. */
+    public void clear() {
+        table.clear();
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    public int getHashFull() {
+        return table.hashFull();
+    }
+
+    public long getNodes() {
+        long nodes = 0;
+        for (Worker worker : workers) nodes += worker.nodes;
+        return nodes;
+    }
+
+    /**
+     * Searches {@code position} within {@code limits}. The position itself is not modified.
+     *
+     * @return the best move found, packed, or 0 if there is no legal move
+     */
+    public int search(ChessGame position, SearchLimits limits, SearchListener listener) {
+        return search(position, limits, listener, CancellationToken.NONE);
+    }
+
+    /**
+     * Same as {@link #search(ChessGame, SearchLimits, SearchListener)}, but also stops once
+     * {@code token} is cancelled. Unlike {@link #stop}, a cancellation made just before the
+     * search starts is not lost, and neither is a {@link SearchLimits#ponderHit}.
+     */
+    public int search(ChessGame position, SearchLimits limits, SearchListener listener, CancellationToken token) {
+        this.token = token;
+        this.limits = limits;
+        stopped = token.isCancelled();
+        pondering = limits.ponder && !limits.isPonderHit();
+        infinite = limits.infinite;
+        nodeLimit = limits.nodes;
+        timeManager.start(limits, position);
+        Metrics metrics = MetricsRegistry.get();
+
+        if (workers.length != threadCount) {
+            workers = new Worker[threadCount];
+            for (int i = 0; i < threadCount; i++) workers[i] = new Worker(i);
+        }
+        for (Worker worker : workers) worker.reset(position, metrics);
+
+        List<Future<?>> helpers = new ArrayList<>();
+        for (int i = 1; i < workers.length; i++) {
+            Worker helper = workers[i];
+            helpers.add(helperPool.submit(() -> helper.iterate(limits.depth, 1, null)));
+        }
+
+        Worker main = workers[0];
+        main.iterate(limits.depth, Math.max(1, limits.multiPv), listener);
+
+        stopped = true;
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        for (Worker worker : workers) worker.game.flushCounts(metrics);
+
+        int bestMove = main.bestMove;
+        if (bestMove == 0) {
+            // Stopped before the first iteration finished: any legal move beats none
+            List<Move> legal = position.getLegalMoves();
+            bestMove = legal.isEmpty() ? 0 : legal.get(0).pack();
+        }
+        if (metrics.isEnabled()) metrics.record(Metrics.Timer.THINK_TIME, timeManager.getElapsedNanos());
+        return bestMove;
+    }
+
+    /** Whether time limits apply: not while searching until stopped or on the opponent's time. */
+    private boolean clockRunning() {
+        return !infinite && !pondering;
+    }
+
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) >= MATE - MAX_PLY;
+    }
+
+    private final class Worker {
+        final int id;
+        final Evaluator evaluator;
+        ChessGame game;
+        Metrics metrics;
+        long nodes;
+        // Node count at which the main thread next checks the clock and the node limit
+        long nextCheck;
+        int bestMove;
+
+        final int[][] moves = new int[MAX_PLY + 1][256];
+        final int[][] scores = new int[MAX_PLY + 1][256];
+        final int[][] killers = new int[MAX_PLY + 1][2];
+        final int[][] history = new int[64][64];
+        final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+        final int[] pvLength = new int[MAX_PLY + 1];
+
+        // Root moves left out of the current search: the first moves of lines already found
+        final int[] excluded = new int[256];
+        int excludedCount;
+
+        Worker(int id) {
+            this.id = id;
+            this.evaluator = Search.this.evaluator.copy();
+        }
+
+        void reset(ChessGame position, Metrics metrics) {
+            game = position.copy();
+            game.setCounting(metrics.isEnabled());
+            this.metrics = metrics;
+            nodes = 0;
+            nextCheck = id == 0 ? timeManager.pollInterval() : Long.MAX_VALUE;
+            bestMove = 0;
+            for (int[] k : killers) Arrays.fill(k, 0);
+            for (int[] h : history) Arrays.fill(h, 0);
+        }
+
+        /** Deepens until a limit is hit, finding the best {@code lines} root moves at each depth. */
+        void iterate(int maxDepth, int lines, SearchListener listener) {
+            int[] lineScores = new int[lines];
+            int[][] linePvs = new int[lines][];
+            // Helpers start at staggered depths so the threads spread over different trees
+            for (int depth = 1 + (id & 1); depth <= maxDepth; depth++) {
+                int completed = 0;
+                excludedCount = 0;
+                for (int line = 0; line < lines; line++) {
+                    int score = aspirate(depth, lineScores[line]);
+                    if (stopped || pvLength[0] == 0) break;
+                    lineScores[line] = score;
+                    linePvs[line] = Arrays.copyOf(pv[0], pvLength[0]);
+                    excluded[excludedCount++] = pv[0][0];
+                    completed++;
+                }
+
+                if (completed > 0) {
+                    bestMove = linePvs[0][0];
+                } else if (stopped && bestMove == 0 && pvLength[0] > 0) {
+                    // Cut short in the first iteration: a partly searched move beats none
+                    bestMove = pv[0][0];
+                }
+                if (stopped) break;
+
+                if (listener != null) {
+                    long elapsedMs = timeManager.getElapsedNanos() / 1_000_000;
+                    for (int line = 0; line < completed; line++) {
+                        listener.onIteration(depth, line + 1, lineScores[line], getNodes(), elapsedMs, linePvs[line]);
+                    }
+                }
+                if (id == 0 && completed > 0
+                        && timeManager.onIteration(depth, bestMove, lineScores[0]) && clockRunning()) break;
+            }
+        }
+
+        /** Searches the root in a window around the previous score, widening it until the score fits. */
+        int aspirate(int depth, int previousScore) {
+            int alpha = -INFINITY, beta = INFINITY, window = 40;
+            if (depth >= 5 && !isMateScore(previousScore)) {
+                alpha = previousScore - window;
+                beta = previousScore + window;
+            }
+            while (true) {
+                int result = alphaBeta(depth, alpha, beta, 0, true);
+                if (stopped) return result;
+                if (result <= alpha) {
+                    alpha = Math.max(-INFINITY, alpha - window);
+                    window *= 2;
+                } else if (result >= beta) {
+                    beta = Math.min(INFINITY, beta + window);
+                    window *= 2;
+                } else {
+                    return result;
+                }
+            }
+        }
+
+        int alphaBeta(int depth, int alpha, int beta, int ply, boolean pvNode) {
+            pvLength[ply] = ply;
+            if (++nodes >= nextCheck) checkLimits();
+            if (stopped) return 0;
+
+            boolean root = ply == 0;
+            if (!root) {
+                if (game.isRepetition() || game.getHalfmoveClock() >= 100) return 0;
+                if (ply >= MAX_PLY) return evaluator.evaluate(game);
+                // A mate already found closer to the root cannot be beaten here
+                alpha = Math.max(alpha, -MATE + ply);
+                beta = Math.min(beta, MATE - ply - 1);
+                if (alpha >= beta) return alpha;
+            }
+
+            boolean inCheck = game.isInCheck();
+            if (inCheck) depth++;
+            if (depth <= 0) return quiesce(alpha, beta, ply);
+
+            long hash = game.getHash();
+            long entry = table.probe(hash);
+            int ttMove = 0;
+            if (entry != 0) {
+                if (metrics.isEnabled()) metrics.count(Metrics.Counter.CACHE_HITS, 1);
+                ttMove = TranspositionTable.move(entry);
+                if (!pvNode && TranspositionTable.depth(entry) >= depth) {
+                    int ttScore = fromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.BOUND_EXACT
+                            || (bound == TranspositionTable.BOUND_LOWER && ttScore >= beta)
+                            || (bound == TranspositionTable.BOUND_UPPER && ttScore <= alpha)) {
+                        return ttScore;
+                    }
+                }
+            }
+
+            // Null move: if passing still fails high, a real move will too
+            if (!pvNode && !inCheck && depth >= 3 && hasPieces() && evaluator.evaluate(game) >= beta) {
+                game.doNullMove();
+                int score = -alphaBeta(depth - 3, -beta, -beta + 1, ply + 1, false);
+                game.undoNullMove();
+                if (stopped) return 0;
+                if (score >= beta && !isMateScore(score)) return beta;
+            }
+
+            int[] list = moves[ply];
+            int count = game.generateMoves(list, false);
+            scoreMoves(list, scores[ply], count, ttMove, ply);
+
+            int bestScore = -INFINITY, best = 0, legal = 0;
+            int originalAlpha = alpha;
+            for (int i = 0; i < count; i++) {
+                int move = pickNext(list, scores[ply], i, count);
+                if (root && isExcluded(move)) continue;
+                boolean quiet = isQuiet(move);
+                if (!game.doMove(move)) continue;
+                legal++;
+
+                int score;
+                if (legal == 1) {
+                    score = -alphaBeta(depth - 1, -beta, -alpha, ply + 1, pvNode);
+                } else {
+                    // Late quiet moves are searched shallower first and re-searched if they surprise
+                    int reduction = (depth >= 3 && legal > 4 && quiet && !inCheck) ? (legal > 12 ? 2 : 1) : 0;
+                    score = -alphaBeta(depth - 1 - reduction, -alpha - 1, -alpha, ply + 1, false);
+                    if (score > alpha && reduction > 0) {
+                        score = -alphaBeta(depth - 1, -alpha - 1, -alpha, ply + 1, false);
+                    }
+                    if (score > alpha && score < beta) {
+                        score = -alphaBeta(depth - 1, -beta, -alpha, ply + 1, true);
+                    }
+                }
+                game.undoMove();
+                if (stopped) return 0;
+
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = move;
+                    if (score > alpha) {
+                        alpha = score;
+                        updatePv(ply, move);
+                        if (score >= beta) {
+                            if (quiet) {
+                                if (killers[ply][0] != move) {
+                                    killers[ply][1] = killers[ply][0];
+                                    killers[ply][0] = move;
+                                }
+                                history[Move.packedFrom(move)][Move.packedTo(move)] += depth * depth;
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+
+            if (legal == 0) {
+                return inCheck ? -MATE + ply : 0;
+            }
+
+            // A root searched without some of its moves says nothing reliable about the position
+            if (root && excludedCount > 0) return bestScore;
+
+            int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER
+                    : bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+            table.store(hash, best, toTable(bestScore, ply), depth, bound);
+            return bestScore;
+        }
+
+        boolean isExcluded(int move) {
+            for (int i = 0; i < excludedCount; i++) {
+                if (excluded[i] == move) return true;
+            }
+            return false;
+        }
+
+        int quiesce(int alpha, int beta, int ply) {
+            pvLength[ply] = ply;
+            if (++nodes >= nextCheck) checkLimits();
+            if (stopped) return 0;
+
+            int standPat = evaluator.evaluate(game);
+            if (ply >= MAX_PLY || standPat >= beta) return standPat;
+            if (standPat > alpha) alpha = standPat;
+
+            int[] list = moves[ply];
+            int count = game.generateMoves(list, true);
+            scoreMoves(list, scores[ply], count, 0, ply);
+
+            for (int i = 0; i < count; i++) {
+                int move = pickNext(list, scores[ply], i, count);
+                if (!game.doMove(move)) continue;
+                int score = -quiesce(-beta, -alpha, ply + 1);
+                game.undoMove();
+                if (stopped) return 0;
+
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (score >= beta) break;
+                }
+            }
+            return alpha;
+        }
+
+        void checkLimits() {
+            if (pondering && id == 0 && limits.isPonderHit()) {
+                // The clock starts at the hit, seen here within one poll interval
+                timeManager.restart();
+                pondering = false;
+            }
+            if (timeManager.hardLimitReached(nodes) && clockRunning()) stopped = true;
+            long total = getNodes();
+            if ((!pondering && total >= nodeLimit) || token.isCancelled()) stopped = true;
+            nextCheck = nodes + Math.min(timeManager.pollInterval(), Math.max(1, nodeLimit - total));
+        }
+
+        void scoreMoves(int[] list, int[] moveScores, int count, int ttMove, int ply) {
+            for (int i = 0; i < count; i++) {
+                int move = list[i];
+                int to = Move.packedTo(move);
+                int victim = game.getPieceCode(to) & 7;
+                if (move == ttMove) {
+                    moveScores[i] = 1_000_000;
+                } else if (victim != 0) {
+                    // Most valuable victim, least valuable attacker
+                    moveScores[i] = 100_000 + ORDER_VALUES[victim] * 8 - (game.getPieceCode(Move.packedFrom(move)) & 7);
+                } else if (Move.packedPromotion(move) == ChessGame.QUEEN) {
+                    moveScores[i] = 90_000;
+                } else if (move == killers[ply][0]) {
+                    moveScores[i] = 80_000;
+                } else if (move == killers[ply][1]) {
+                    moveScores[i] = 79_000;
+                } else {
+                    moveScores[i] = Math.min(history[Move.packedFrom(move)][to], 70_000);
+                }
+            }
+        }
+
+        int pickNext(int[] list, int[] moveScores, int start, int count) {
+            int best = start;
+            for (int i = start + 1; i < count; i++) {
+                if (moveScores[i] > moveScores[best]) best = i;
+            }
+            int move = list[best];
+            list[best] = list[start];
+            list[start] = move;
+            int score = moveScores[best];
+            moveScores[best] = moveScores[start];
+            moveScores[start] = score;
+            return move;
+        }
+
+        boolean isQuiet(int move) {
+            return game.getPieceCode(Move.packedTo(move)) == ChessGame.EMPTY && Move.packedPromotion(move) == 0
+                    && !((game.getPieceCode(Move.packedFrom(move)) & 7) == ChessGame.PAWN && Move.packedTo(move) == game.getEnPassantSquare());
+        }
+
+        boolean hasPieces() {
+            byte own = game.isWhiteTurn() ? 0 : ChessGame.BLACK;
+            for (int sq = 0; sq < 64; sq++) {
+                byte piece = game.getPieceCode(sq);
+                int type = piece & 7;
+                if ((piece & ChessGame.BLACK) == own && type >= ChessGame.KNIGHT && type <= ChessGame.QUEEN) return true;
+            }
+            return false;
+        }
+
+        void updatePv(int ply, int move) {
+            pv[ply][ply] = move;
+            System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+            pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+        }
+    }
+
+    // Mate scores are stored relative to the node so they stay valid at any ply
+    private static int toTable(int score, int ply) {
+        return score >= MATE - MAX_PLY ? score + ply : score <= -MATE + MAX_PLY ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return score >= MATE - MAX_PLY ? score - ply : score <= -MATE + MAX_PLY ? score + ply : score;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.chess.engine;
+
+/** What a single {@link Search#search} call is allowed to spend. Unset limits are ignored. */
+public class SearchLimits {
+    public int depth = Search.MAX_PLY;
+    public long nodes = Long.MAX_VALUE;
+    public long moveTimeMs = -1;
+
+    // Clock state, as given by a UCI "go" command
+    public long whiteTimeMs = -1, blackTimeMs = -1;
+    public long whiteIncrementMs, blackIncrementMs;
+    public int movesToGo;
+
+    /** Number of best moves to search and report, each with its own line and score. */
+    public int multiPv = 1;
+
+    /** Search until stopped. */
+    public boolean infinite;
+    /** Search on the opponent's time until {@link #ponderHit} or stop. */
+    public boolean ponder;
+
+    private volatile boolean ponderHit;
+
+    /**
+     * The opponent played the move being pondered on, so the clock runs from now. May be called
+     * from any thread, also before the search has started.
+     */
+    public void ponderHit() {
+        ponderHit = true;
+    }
+
+    boolean isPonderHit() {
+        return ponderHit;
+    }
+
+    public static SearchLimits depth(int depth) {
+        SearchLimits limits = new SearchLimits();
+        limits.depth = depth;
+        return limits;
+    }
+
+    public static SearchLimits moveTime(long moveTimeMs) {
+        SearchLimits limits = new SearchLimits();
+        limits.moveTimeMs = moveTimeMs;
+        return limits;
+    }
+}
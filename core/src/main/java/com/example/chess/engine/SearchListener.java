@@ -0,0 +1,15 @@
+package com.example.chess.engine;
+
+/** Receives progress from a running {@link Search}. Called on the searching thread. */
+public interface SearchListener {
+    /**
+     * Called each time an iteration of the iterative deepening completes, once for each line
+     * when {@link SearchLimits#multiPv} asks for more than one, best line first.
+     *
+     * @param line  1 for the best line, 2 for the second best and so on
+     * @param score centipawns from the side to move, or within {@link Search#MAX_PLY} of
+     *              +/-{@link Search#MATE} for a forced mate
+     * @param pv    principal variation as packed moves
+     */
+    void onIteration(int depth, int line, int score, long nodes, long elapsedMs, int[] pv);
+}
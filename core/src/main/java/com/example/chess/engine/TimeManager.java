@@ -0,0 +1,159 @@
+package com.example.chess.engine;
+
+import com.example.chess.ChessGame;
+
+/**
+ * Decides how long a search thinks about one move. From the clock it sets an optimum time, what
+ * a move should take on average, and a hard limit that is never exceeded and leaves the move
+ * overhead on the clock, or half the clock when less is left, so the engine does not lose on
+ * time. After every iteration the optimum is stretched while the best move keeps changing or the
+ * score drops, and shrunk while the best move holds; deepening stops once half of it is used,
+ * since the next iteration would likely take as long as all before it.
+ *
+ * <p>The clock is read once every {@link #pollInterval} nodes, an interval fitted to the measured
+ * speed so that reads come about once a millisecond, and sooner close to the hard limit.
+ *
+ * <p>Used on the searching thread, except {@link #restart}.
+ */
+public class TimeManager {
+    /** Time kept back per move for communication and process scheduling. */
+    public static final long DEFAULT_MOVE_OVERHEAD_MS = 20;
+
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    private static final long POLL_NANOS = 1_000_000;
+    private static final int MIN_POLL_NODES = 16, MAX_POLL_NODES = 1 << 16;
+    private static final int UNTIMED_POLL_NODES = 1024;
+    // Until the speed is known, poll early: phones search far fewer nodes per millisecond
+    private static final int FIRST_POLL_NODES = 128;
+    // Best move changes before this depth are too cheap to be worth reacting to
+    private static final int MIN_STABILITY_DEPTH = 4;
+
+    private long moveOverheadMs = DEFAULT_MOVE_OVERHEAD_MS;
+
+    private volatile long startNanos;
+    private long optimumNanos, hardNanos;
+    private boolean timed, adaptive, singleReply;
+
+    private int previousBestMove, previousScore;
+    private double instability;
+    private double swing;
+
+    private long lastPollNanos, lastPollNodes;
+    private int pollInterval;
+
+    public void setMoveOverhead(long moveOverheadMs) {
+        this.moveOverheadMs = Math.max(0, moveOverheadMs);
+    }
+
+    /** Sets the limits for a search of {@code position} and starts the clock. */
+    public void start(SearchLimits limits, ChessGame position) {
+        startNanos = System.nanoTime();
+        long time = position.isWhiteTurn() ? limits.whiteTimeMs : limits.blackTimeMs;
+        long increment = position.isWhiteTurn() ? limits.whiteIncrementMs : limits.blackIncrementMs;
+        timed = true;
+        adaptive = false;
+        if (limits.moveTimeMs > 0) {
+            hardNanos = optimumNanos = usableNanos(limits.moveTimeMs);
+        } else if (time >= 0) {
+            int movesToGo = limits.movesToGo > 0 ? limits.movesToGo : DEFAULT_MOVES_TO_GO;
+            long usable = usableNanos(time);
+            long optimum = usable / movesToGo + increment * 750_000L;
+            // The last move before the time control may use nearly all of it, others a share
+            double maxShare = movesToGo == 1 ? 0.9 : Math.min(0.5, 3.0 / movesToGo);
+            hardNanos = Math.max(1, Math.min(optimum * 5, (long) (usable * maxShare)));
+            optimumNanos = Math.max(1, Math.min(optimum, hardNanos));
+            adaptive = true;
+        } else {
+            timed = false;
+            hardNanos = optimumNanos = Long.MAX_VALUE;
+        }
+        singleReply = timed && position.getLegalMoves().size() == 1;
+
+        previousBestMove = 0;
+        instability = 0;
+        swing = 0;
+        lastPollNanos = startNanos;
+        lastPollNodes = 0;
+        pollInterval = timed ? FIRST_POLL_NODES : UNTIMED_POLL_NODES;
+    }
+
+    /**
+     * The part of {@code timeMs} a move may use. The overhead is kept back, but never more than
+     * half the clock: with little time left, moves must get faster rather than stop altogether.
+     */
+    private long usableNanos(long timeMs) {
+        long reserve = Math.min(moveOverheadMs, timeMs / 2);
+        return Math.max(1, timeMs - reserve) * 1_000_000L;
+    }
+
+    /** Restarts the clock, e.g. when a ponder search becomes the real one. */
+    public void restart() {
+        startNanos = System.nanoTime();
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public long getOptimumMs() {
+        return timed ? optimumNanos / 1_000_000 : -1;
+    }
+
+    public long getHardLimitMs() {
+        return timed ? hardNanos / 1_000_000 : -1;
+    }
+
+    /** Nodes to search before the next call to {@link #hardLimitReached}. */
+    public int pollInterval() {
+        return pollInterval;
+    }
+
+    /**
+     * Reads the clock: true once the hard limit is reached. {@code nodes} is the caller's node
+     * count, used to fit the poll interval to the search speed.
+     */
+    public boolean hardLimitReached(long nodes) {
+        if (!timed) return false;
+        long now = System.nanoTime();
+        long elapsed = now - startNanos;
+        long nodesSince = nodes - lastPollNodes, nanosSince = now - lastPollNanos;
+        if (nanosSince > 0 && nodesSince > 0) {
+            double nodesPerNano = (double) nodesSince / nanosSince;
+            // About once a millisecond, and at least four times in what is left
+            long wait = Math.min(POLL_NANOS, Math.max(0, hardNanos - elapsed) / 4);
+            pollInterval = (int) Math.max(MIN_POLL_NODES, Math.min(MAX_POLL_NODES, nodesPerNano * wait));
+        }
+        lastPollNanos = now;
+        lastPollNodes = nodes;
+        return elapsed >= hardNanos;
+    }
+
+    /**
+     * Called after each completed iteration with its best move and score. Returns true if
+     * another iteration is not worth starting.
+     */
+    public boolean onIteration(int depth, int bestMove, int score) {
+        if (depth >= MIN_STABILITY_DEPTH) {
+            instability = instability / 2 + (bestMove != previousBestMove ? 1 : 0);
+            if (!Search.isMateScore(score) && !Search.isMateScore(previousScore)) {
+                int drop = previousScore - score;
+                // Falling scores count double: there may be a refutation to find
+                swing = Math.min(1.0, (drop > 0 ? drop : -drop / 2.0) / 150.0);
+            }
+        }
+        previousBestMove = bestMove;
+        previousScore = score;
+
+        if (!timed) return false;
+        if (singleReply) return true;
+        long elapsed = getElapsedNanos();
+        if (!adaptive) return elapsed >= optimumNanos;
+        return elapsed >= Math.min(hardNanos, (long) (optimumNanos * scale())) / 2;
+    }
+
+    /** Factor on the optimum: 0.7 for a long-settled best move, up to 2 for one that keeps changing. */
+    double scale() {
+        double stability = 0.7 + 0.65 * Math.min(2, instability);
+        return Math.min(2.0, stability * (1 + 0.5 * swing));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Shared hash table of search results keyed by position hash. Entries are two longs and are
+ * written without locks: the key is stored xor-ed with the data, so an entry torn by two
+ * threads writing at once simply fails verification on the next probe.
+ */
+public class TranspositionTable {
+    public static final int BOUND_EXACT = 1, BOUND_LOWER = 2, BOUND_UPPER = 3;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    public TranspositionTable(int sizeMb) {
+        long entries = Math.max(1024, (long) sizeMb * 1024 * 1024 / 16);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        keys = new long[size];
+        data = new long[size];
+        mask = size - 1;
+    }
+
+    /** Returns the packed entry for {@code hash}, or 0 if there is none. */
+    public long probe(long hash) {
+        int index = (int) hash & mask;
+        long entry = data[index];
+        return (keys[index] ^ entry) == hash ? entry : 0;
+    }
+
+    public void store(long hash, int move, int score, int depth, int bound) {
+        int index = (int) hash & mask;
+        long old = data[index];
+        if ((keys[index] ^ old) == hash) {
+            // Keep deeper results for the same position, and keep a known move
+            if (depth < depth(old) - 2 && bound != BOUND_EXACT) return;
+            if (move == 0) move = move(old);
+        }
+        long entry = (move & 0xFFFFL) | (score & 0xFFFFL) << 16 | (depth & 0xFFL) << 32 | (long) bound << 40;
+        data[index] = entry;
+        keys[index] = hash ^ entry;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+    }
+
+    /** Permill of entries in use, sampled from the start of the table. */
+    public int hashFull() {
+        int used = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (data[i] != 0) used++;
+        }
+        return used;
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    public static int score(long entry) {
+        return (short) (entry >>> 16);
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> 40) & 3;
+    }
+}
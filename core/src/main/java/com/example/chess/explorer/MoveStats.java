@@ -0,0 +1,24 @@
+package com.example.chess.explorer;
+
+/** How often a move was played in one position across the indexed games, and how those games ended. */
+public final class MoveStats {
+    public final int move;
+    public final long whiteWins, draws, blackWins;
+
+    public MoveStats(int move, long whiteWins, long draws, long blackWins) {
+        this.move = move;
+        this.whiteWins = whiteWins;
+        this.draws = draws;
+        this.blackWins = blackWins;
+    }
+
+    public long getGames() {
+        return whiteWins + draws + blackWins;
+    }
+
+    /** White's share of the points, from 0 to 1. */
+    public double getWhiteScore() {
+        long games = getGames();
+        return games == 0 ? 0.5 : (whiteWins + draws / 2.0) / games;
+    }
+}
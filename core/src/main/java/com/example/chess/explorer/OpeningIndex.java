@@ -0,0 +1,86 @@
+package com.example.chess.explorer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Move statistics for positions from indexed game archives, for an opening explorer. Reads all
+ * segment files ({@code *.seg}) of a directory as written by the indexer; segments added later
+ * for more games simply add to the counts. Data stays on disk and is paged in on demand, so a
+ * lookup takes microseconds whatever the size of the archive.
+ *
+ * <p>Thread-safe.
+ */
+public final class OpeningIndex implements Closeable {
+    public static final String SEGMENT_SUFFIX = ".seg";
+
+    private final List<Segment> segments;
+
+    private OpeningIndex(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    public static OpeningIndex open(File directory) throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) throw new IOException("Not a directory: " + directory);
+        Arrays.sort(files);
+        List<Segment> segments = new ArrayList<>(files.length);
+        try {
+            for (File file : files) segments.add(Segment.open(file));
+        } catch (IOException e) {
+            for (Segment segment : segments) segment.close();
+            throw e;
+        }
+        return new OpeningIndex(Collections.unmodifiableList(segments));
+    }
+
+    /** Moves played from the position with {@code hash}, most played first; empty if it was never reached. */
+    public List<MoveStats> lookup(long hash) {
+        List<MoveStats> merged = Collections.emptyList();
+        for (Segment segment : segments) {
+            List<MoveStats> found = segment.lookup(hash);
+            if (found.isEmpty()) continue;
+            merged = merged.isEmpty() ? found : merge(merged, found);
+        }
+        if (merged.size() > 1) {
+            merged = new ArrayList<>(merged);
+            merged.sort((a, b) -> Long.compare(b.getGames(), a.getGames()));
+        }
+        return merged;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Segment segment : segments) segment.close();
+    }
+
+    // Both lists in ascending order of move
+    private static List<MoveStats> merge(List<MoveStats> a, List<MoveStats> b) {
+        List<MoveStats> merged = new ArrayList<>(a.size() + b.size());
+        int i = 0, j = 0;
+        while (i < a.size() || j < b.size()) {
+            MoveStats x = i < a.size() ? a.get(i) : null, y = j < b.size() ? b.get(j) : null;
+            if (y == null || (x != null && x.move < y.move)) {
+                merged.add(x);
+                i++;
+            } else if (x == null || y.move < x.move) {
+                merged.add(y);
+                j++;
+            } else {
+                merged.add(new MoveStats(x.move, x.whiteWins + y.whiteWins, x.draws + y.draws, x.blackWins + y.blackWins));
+                i++;
+                j++;
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.chess.explorer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One immutable, sorted file of position statistics, read through a memory mapping so that only
+ * the parts that are looked at are paged in.
+ *
+ * <p>The file holds a header (magic, version), then blocks of about {@link #BLOCK_SIZE} bytes,
+ * then a sparse index of the first hash and offset of every block, then the index offset and the
+ * magic again. A block is a run of positions in hash order, each written as the varint distance
+ * from the previous hash (0 for the first), the varint number of moves, and per move its packed
+ * value and white wins, draws and black wins as varints. Only the sparse index is kept on the
+ * heap: a lookup is one binary search over it and one block scan.
+ *
+ * <p>Thread-safe: lookups only use absolute reads.
+ */
+public final class Segment implements Closeable {
+    static final int MAGIC = 'C' << 24 | 'X' << 16 | 'P' << 8 | '1';
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int BLOCK_SIZE = 4096;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final ByteBuffer data;
+    private final long[] blockHashes;
+    private final int[] blockOffsets;
+    private final int indexOffset;
+
+    private Segment(File file, RandomAccessFile raf, ByteBuffer data, long[] blockHashes, int[] blockOffsets, int indexOffset) {
+        this.file = file;
+        this.raf = raf;
+        this.data = data;
+        this.blockHashes = blockHashes;
+        this.blockOffsets = blockOffsets;
+        this.indexOffset = indexOffset;
+    }
+
+    public static Segment open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            long length = raf.length();
+            if (length > Integer.MAX_VALUE) throw new IOException("Segment too large to map: " + file);
+            ByteBuffer data = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (length < HEADER_SIZE + 16 || data.getInt(0) != MAGIC || data.getInt((int) length - 4) != MAGIC) {
+                throw new IOException("Not a segment file: " + file);
+            }
+            if (data.getInt(4) != VERSION) throw new IOException("Unsupported segment version: " + file);
+
+            long indexOffset = data.getLong((int) length - 12);
+            if (indexOffset < HEADER_SIZE || indexOffset > length - 16) throw new IOException("Corrupt segment: " + file);
+            int blocks = data.getInt((int) indexOffset);
+            if (blocks < 0 || indexOffset + 4 + 16L * blocks != length - 12) throw new IOException("Corrupt segment: " + file);
+            long[] hashes = new long[blocks];
+            int[] offsets = new int[blocks];
+            for (int i = 0; i < blocks; i++) {
+                int entry = (int) indexOffset + 4 + 16 * i;
+                hashes[i] = data.getLong(entry);
+                offsets[i] = (int) data.getLong(entry + 8);
+            }
+            return new Segment(file, raf, data, hashes, offsets, (int) indexOffset);
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /** Moves played from the position with {@code hash}, in ascending order of packed move. */
+    public List<MoveStats> lookup(long hash) {
+        // Last block starting at or before the hash; a position never spans two blocks
+        int lo = 0, hi = blockHashes.length - 1, block = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (blockHashes[mid] <= hash) {
+                block = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (block < 0) return Collections.emptyList();
+
+        Decoder in = new Decoder(data, blockOffsets[block]);
+        int end = block + 1 < blockOffsets.length ? blockOffsets[block + 1] : indexOffset;
+        long current = blockHashes[block];
+        while (in.position < end) {
+            current += in.varint();
+            int count = (int) in.varint();
+            if (current == hash) {
+                List<MoveStats> moves = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    moves.add(new MoveStats((int) in.varint(), in.varint(), in.varint(), in.varint()));
+                }
+                return moves;
+            }
+            if (current > hash) break;
+            for (int i = 0; i < 4 * count; i++) in.varint();
+        }
+        return Collections.emptyList();
+    }
+
+    /** Walks all positions in hash order, for merging segments. */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mapping itself is released once the buffer is garbage collected
+        raf.close();
+    }
+
+    /** Position-by-position reader over the whole segment. */
+    public final class Cursor {
+        private final Decoder in = new Decoder(data, HEADER_SIZE);
+        private int block = -1;
+        private int blockEnd = HEADER_SIZE;
+
+        public long hash;
+        public int size;
+        public int[] moves = new int[32];
+        /** White wins, draws and black wins of each move, three entries per move. */
+        public long[] counts = new long[3 * 32];
+
+        /** Moves to the next position; false at the end of the segment. */
+        public boolean next() {
+            if (in.position >= blockEnd) {
+                if (++block >= blockOffsets.length) return false;
+                in.position = blockOffsets[block];
+                blockEnd = block + 1 < blockOffsets.length ? blockOffsets[block + 1] : indexOffset;
+                hash = blockHashes[block];
+            }
+            hash += in.varint();
+            size = (int) in.varint();
+            if (size > moves.length) {
+                moves = Arrays.copyOf(moves, size);
+                counts = Arrays.copyOf(counts, 3 * size);
+            }
+            for (int i = 0; i < size; i++) {
+                moves[i] = (int) in.varint();
+                counts[3 * i] = in.varint();
+                counts[3 * i + 1] = in.varint();
+                counts[3 * i + 2] = in.varint();
+            }
+            return true;
+        }
+    }
+
+    private static final class Decoder {
+        final ByteBuffer data;
+        int position;
+
+        Decoder(ByteBuffer data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        long varint() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data.get(position++);
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.chess.explorer;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Writes one {@link Segment} file. Records must be added in ascending order of position hash
+ * (compared as signed longs) and, within a position, of move; the moves of one position always
+ * end up in the same block.
+ */
+public final class SegmentWriter implements Closeable {
+    private final DataOutputStream out;
+    private long offset;
+
+    // Sparse index: first hash and file offset of every block written so far
+    private long[] blockHashes = new long[64];
+    private long[] blockOffsets = new long[64];
+    private int blockCount;
+
+    private byte[] block = new byte[2 * Segment.BLOCK_SIZE];
+    private int blockLength;
+    private long blockFirstHash, previousHash;
+
+    // Moves of the position being added
+    private long groupHash;
+    private int groupSize;
+    private int[] moves = new int[32];
+    private long[] counts = new long[3 * 32];
+    private boolean empty = true;
+
+    public SegmentWriter(File file) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        out.writeInt(Segment.MAGIC);
+        out.writeInt(Segment.VERSION);
+        offset = Segment.HEADER_SIZE;
+    }
+
+    public void add(long hash, int move, long whiteWins, long draws, long blackWins) throws IOException {
+        if (empty || hash != groupHash) {
+            if (!empty) {
+                if (hash < groupHash) throw new IllegalArgumentException("Positions out of order");
+                writeGroup();
+            }
+            empty = false;
+            groupHash = hash;
+            groupSize = 0;
+        } else if (move <= moves[groupSize - 1]) {
+            throw new IllegalArgumentException("Moves out of order");
+        }
+        if (groupSize == moves.length) {
+            moves = Arrays.copyOf(moves, groupSize * 2);
+            counts = Arrays.copyOf(counts, groupSize * 6);
+        }
+        moves[groupSize] = move;
+        counts[3 * groupSize] = whiteWins;
+        counts[3 * groupSize + 1] = draws;
+        counts[3 * groupSize + 2] = blackWins;
+        groupSize++;
+    }
+
+    /** Bytes written to the file so far, not counting the position being added. */
+    public long size() {
+        return offset + blockLength;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!empty) writeGroup();
+            flushBlock();
+            long indexOffset = offset;
+            out.writeInt(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                out.writeLong(blockHashes[i]);
+                out.writeLong(blockOffsets[i]);
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(Segment.MAGIC);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeGroup() throws IOException {
+        if (blockLength >= Segment.BLOCK_SIZE) flushBlock();
+        if (blockLength == 0) {
+            blockFirstHash = groupHash;
+            previousHash = groupHash;
+        }
+        putVarint(groupHash - previousHash);
+        previousHash = groupHash;
+        putVarint(groupSize);
+        for (int i = 0; i < groupSize; i++) {
+            putVarint(moves[i]);
+            putVarint(counts[3 * i]);
+            putVarint(counts[3 * i + 1]);
+            putVarint(counts[3 * i + 2]);
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockLength == 0) return;
+        if (blockCount == blockHashes.length) {
+            blockHashes = Arrays.copyOf(blockHashes, blockCount * 2);
+            blockOffsets = Arrays.copyOf(blockOffsets, blockCount * 2);
+        }
+        blockHashes[blockCount] = blockFirstHash;
+        blockOffsets[blockCount++] = offset;
+        out.write(block, 0, blockLength);
+        offset += blockLength;
+        blockLength = 0;
+    }
+
+    // Unsigned LEB128: seven bits per byte, low bits first
+    private void putVarint(long value) {
+        if (blockLength + 10 > block.length) block = Arrays.copyOf(block, block.length * 2);
+        while ((value & ~0x7FL) != 0) {
+            block[blockLength++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        block[blockLength++] = (byte) value;
+    }
+}
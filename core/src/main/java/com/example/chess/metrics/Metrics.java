@@ -0,0 +1,57 @@
+package com.example.chess.metrics;
+
+/**
+ * Receives counts and timings from the rules, the engine and the UI. Install an implementation
+ * with {@link MetricsRegistry#install}; until then {@link #NOOP} is used, which records nothing
+ * and costs next to nothing once inlined.
+ *
+ * <p>Implementations are called from many threads at once and must be thread-safe.
+ */
+public interface Metrics {
+
+    enum Counter {
+        /** Pseudo-legal moves produced by move generation, in searches and perft runs. */
+        MOVES_GENERATED,
+        /** Attack tests on a square, mostly to see whether a king is in check, in searches and perft runs. */
+        CHECK_TESTS,
+        /** Moves played on the board only to see whether they are legal. */
+        TRIAL_MOVES,
+        /** Lookups answered by the transposition table or another cache. */
+        CACHE_HITS,
+    }
+
+    enum Timer {
+        /** Listing the legal moves of a piece or a whole position. */
+        LEGAL_MOVE_GENERATION,
+        /** Checkmate, stalemate and draw tests. */
+        STATUS_CHECK,
+        /** One call to the engine, from start to best move. */
+        THINK_TIME,
+        /** One frame of the board view. */
+        FRAME_DRAW,
+        /** Handling one touch on the board view. */
+        TOUCH,
+    }
+
+    Metrics NOOP = new Metrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void count(Counter counter, long amount) {
+        }
+
+        @Override
+        public void record(Timer timer, long nanos) {
+        }
+    };
+
+    /** False if nothing is recorded, so callers can skip reading the clock. */
+    boolean isEnabled();
+
+    void count(Counter counter, long amount);
+
+    void record(Timer timer, long nanos);
+}
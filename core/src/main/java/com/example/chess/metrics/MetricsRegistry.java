@@ -0,0 +1,18 @@
+package com.example.chess.metrics;
+
+/** Holds the process-wide {@link Metrics} implementation. */
+public final class MetricsRegistry {
+    private static volatile Metrics metrics = Metrics.NOOP;
+
+    private MetricsRegistry() {
+    }
+
+    public static Metrics get() {
+        return metrics;
+    }
+
+    /** Starts sending metrics to {@code metrics}; null goes back to {@link Metrics#NOOP}. */
+    public static void install(Metrics metrics) {
+        MetricsRegistry.metrics = metrics != null ? metrics : Metrics.NOOP;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.chess.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Keeps every counter and a {@link Histogram} per timer in memory, for reports and dumps. */
+public class RecordingMetrics implements Metrics {
+    private final LongAdder[] counters = new LongAdder[Counter.values().length];
+    private final Histogram[] timers = new Histogram[Timer.values().length];
+
+    public RecordingMetrics() {
+        for (int i = 0; i < counters.length; i++) counters[i] = new LongAdder();
+        for (int i = 0; i < timers.length; i++) timers[i] = new Histogram();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void count(Counter counter, long amount) {
+        counters[counter.ordinal()].add(amount);
+    }
+
+    @Override
+    public void record(Timer timer, long nanos) {
+        timers[timer.ordinal()].record(nanos);
+    }
+
+    public long getCount(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    public Histogram getHistogram(Timer timer) {
+        return timers[timer.ordinal()];
+    }
+
+    public void reset() {
+        for (LongAdder counter : counters) counter.reset();
+        for (Histogram timer : timers) timer.reset();
+    }
+
+    /** One line per counter and per timer that saw any use; times are in microseconds. */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        for (Counter counter : Counter.values()) {
+            long count = getCount(counter);
+            if (count != 0) sb.append(String.format(Locale.ROOT, "%-22s %d%n", counter, count));
+        }
+        for (Timer timer : Timer.values()) {
+            Histogram histogram = getHistogram(timer);
+            if (histogram.getCount() == 0) continue;
+            sb.append(String.format(Locale.ROOT, "%-22s n=%d mean=%.1f p50=%.1f p99=%.1f max=%.1f us%n",
+                    timer, histogram.getCount(), histogram.getMean() / 1000,
+                    histogram.getPercentile(50) / 1000.0, histogram.getPercentile(99) / 1000.0,
+                    histogram.getMax() / 1000.0));
+        }
+        return sb.toString();
+    }
+}
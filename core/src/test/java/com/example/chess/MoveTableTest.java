@@ -0,0 +1,79 @@
+package com.example.chess;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class MoveTableTest {
+    private static final String[] FENS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            // Castling both ways, pins, and a pawn one step from promotion after a few moves
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b KQkq - 0 1",
+            // En passant, and a pinned pawn that may not take it
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "8/8/8/KPp4r/8/8/8/6k1 w - c6 0 2",
+            // Promotions, with captures
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            // In check: only blocks, captures of the checker and king moves remain
+            "4k3/8/8/8/1b6/8/8/1N2K2R w K - 0 1",
+    };
+
+    @Test
+    public void movesMatchTheSafeValidMoves() {
+        for (String fen : FENS) {
+            ChessGame game = ChessGame.fromFen(fen);
+            MoveTable table = MoveTable.of(game.getSnapshot());
+            for (int row = 0; row < 8; row++) {
+                for (int col = 0; col < 8; col++) {
+                    String where = fen + " at " + row + "," + col;
+                    String piece = game.getPieceAt(row, col);
+                    boolean own = piece != null && piece.startsWith(game.isWhiteTurn() ? "white" : "black");
+                    if (!own) {
+                        assertTrue(where, table.getMoves(row, col).isEmpty());
+                        continue;
+                    }
+
+                    Set<Integer> expected = new TreeSet<>();
+                    for (int[] move : game.getValidMoves(row, col)) {
+                        if (game.isMoveSafe(row, col, move[0], move[1])) expected.add(move[0] * 8 + move[1]);
+                    }
+                    // Castling is listed as the king's two-square move
+                    for (Move move : game.getLegalMoves()) {
+                        int from = Move.packedFrom(move.pack()), to = Move.packedTo(move.pack());
+                        if (from == row * 8 + col && piece.endsWith("king") && Math.abs(to - from) == 2) expected.add(to);
+                    }
+                    assertEquals(where, expected, squares(table.getMoves(row, col)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void statusFollowsThePosition() {
+        MoveTable start = MoveTable.of(new ChessGame().getSnapshot());
+        assertFalse(start.isInCheck());
+        assertFalse(start.isCheckmate());
+        assertFalse(start.isStalemate());
+        assertEquals(new ChessGame().getHash(), start.getHash());
+
+        MoveTable mated = MoveTable.of(ChessGame.fromFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3").getSnapshot());
+        assertTrue(mated.isInCheck());
+        assertTrue(mated.isCheckmate());
+
+        MoveTable stalemate = MoveTable.of(ChessGame.fromFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1").getSnapshot());
+        assertTrue(stalemate.isStalemate());
+        assertFalse(stalemate.isCheckmate());
+    }
+
+    private static Set<Integer> squares(List<int[]> moves) {
+        Set<Integer> squares = new TreeSet<>();
+        for (int[] move : moves) assertTrue("listed twice", squares.add(move[0] * 8 + move[1]));
+        return squares;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.chess;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class NotationTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    public void everyLegalMoveRoundTrips() {
+        String[] fens = {
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                KIWIPETE,
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1",
+                "2k5/8/8/8/4Q2Q/8/8/K6Q w - - 0 1",
+        };
+        for (String fen : fens) {
+            ChessGame game = ChessGame.fromFen(fen);
+            Set<String> seen = new HashSet<>();
+            for (Move move : game.getLegalMoves()) {
+                String san = Notation.toSan(game, move.pack());
+                assertTrue("duplicate " + san + " in " + fen, seen.add(san));
+                assertEquals(san + " in " + fen, move.pack(), Notation.fromSan(game, san));
+            }
+            assertEquals("position must be left unchanged", fen, game.toFen());
+        }
+    }
+
+    @Test
+    public void disambiguation() {
+        ChessGame rooks = ChessGame.fromFen("4k3/8/8/R7/8/8/4K3/R6R w - - 0 1");
+        assertEquals("Rad1", san(rooks, "a1d1"));
+        assertEquals("Rhd1", san(rooks, "h1d1"));
+        assertEquals("R1a3", san(rooks, "a1a3"));
+        assertEquals("R5a3", san(rooks, "a5a3"));
+
+        // Another queen on the same file and another on the same rank need the full square
+        ChessGame queens = ChessGame.fromFen("2k5/8/8/8/4Q2Q/8/8/K6Q w - - 0 1");
+        assertEquals("Qh4e1", san(queens, "h4e1"));
+        assertEquals("Qee1", san(queens, "e4e1"));
+        assertEquals("Q1e1", san(queens, "h1e1"));
+    }
+
+    @Test
+    public void promotionWithCheck() {
+        ChessGame game = ChessGame.fromFen("3k4/1P6/8/8/8/8/8/4K3 w - - 0 1");
+        assertEquals("b8=Q+", san(game, "b7b8q"));
+        assertEquals("b8=R+", san(game, "b7b8r"));
+        assertEquals("b8=N", san(game, "b7b8n"));
+        assertEquals("b7b8q", Move.unpack(Notation.fromSan(game, "b8=Q+")).toString());
+        assertEquals("b7b8q", Move.unpack(Notation.fromSan(game, "b8Q")).toString());
+
+        ChessGame capture = ChessGame.fromFen("1r1k4/P7/8/8/8/8/8/4K3 w - - 0 1");
+        assertEquals("axb8=Q+", san(capture, "a7b8q"));
+    }
+
+    @Test
+    public void castling() {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        assertEquals("O-O", san(game, "e1g1"));
+        assertEquals("O-O-O", san(game, "e1c1"));
+        assertEquals("e1g1", Move.unpack(Notation.fromSan(game, "0-0")).toString());
+        assertEquals("e1c1", Move.unpack(Notation.fromSan(game, "O-O-O")).toString());
+
+        ChessGame black = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1");
+        assertEquals("e8c8", Move.unpack(Notation.fromSan(black, "O-O-O")).toString());
+
+        ChessGame check = ChessGame.fromFen("5k2/8/8/8/8/8/8/4K2R w K - 0 1");
+        assertEquals("O-O+", san(check, "e1g1"));
+    }
+
+    @Test
+    public void capturesAndMate() {
+        ChessGame enPassant = ChessGame.fromFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        assertEquals("exd6", san(enPassant, "e5d6"));
+
+        ChessGame backRank = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        assertEquals("Ra8#", san(backRank, "a1a8"));
+        assertEquals("a1a8", Move.unpack(Notation.fromSan(backRank, "Ra8#!")).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ambiguousSanIsRejected() {
+        Notation.fromSan(ChessGame.fromFen("4k3/8/8/8/8/8/4K3/R6R w - - 0 1"), "Rd1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalSanIsRejected() {
+        Notation.fromSan(new ChessGame(), "e5");
+    }
+
+    private static String san(ChessGame game, String uci) {
+        return Notation.toSan(game, Move.parse(uci).pack());
+    }
+}
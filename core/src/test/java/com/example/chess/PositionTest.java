@@ -0,0 +1,94 @@
+package com.example.chess;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PositionTest {
+    @Test
+    public void snapshotFollowsMakeMove() {
+        ChessGame game = new ChessGame();
+        for (String move : new String[] {"e2e4", "c7c5", "g1f3", "d7d6", "e1e2"}) {
+            play(game, move);
+            assertMatches(game);
+        }
+    }
+
+    @Test
+    public void snapshotFollowsUndo() {
+        ChessGame game = new ChessGame();
+        play(game, "e2e4");
+        play(game, "e7e5");
+        game.undoMove();
+        assertMatches(game);
+        game.undoMove();
+        assertMatches(game);
+        assertEquals(0, game.getHistorySize());
+    }
+
+    @Test
+    public void snapshotFollowsSetPieceAt() {
+        ChessGame game = new ChessGame();
+        game.setPieceAt(6, 4, null);
+        assertMatches(game);
+        game.setPieceAt(4, 4, "whitequeen");
+        assertMatches(game);
+    }
+
+    @Test
+    public void searchStepsAreNotPublished() {
+        ChessGame game = new ChessGame();
+        play(game, "d2d4");
+        Position before = game.getSnapshot();
+        int[] moves = new int[256];
+        int count = game.generateMoves(moves, false);
+        for (int i = 0; i < count; i++) {
+            if (!game.doMove(moves[i])) continue;
+            assertSame(before, game.getSnapshot());
+            game.undoMove();
+        }
+        assertSame(before, game.getSnapshot());
+    }
+
+    @Test
+    public void gameFromSnapshotHasNoHistory() {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3");
+        play(game, "g8f6");
+        ChessGame copy = game.getSnapshot().toGame();
+        assertEquals(0, copy.getHistorySize());
+        assertEquals(game.toFen(), copy.toFen());
+        assertEquals(game.getHash(), copy.getHash());
+        try {
+            copy.undoMove();
+            fail("undo past the snapshot");
+        } catch (IllegalStateException expected) {
+            // nothing to take back
+        }
+    }
+
+    @Test
+    public void gameFromSnapshotSeesEarlierRepetitions() {
+        ChessGame game = new ChessGame();
+        for (String move : new String[] {"g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6"}) play(game, move);
+        ChessGame copy = game.getSnapshot().toGame();
+        play(copy, "f3g1");
+        assertFalse(copy.isDraw());
+        play(copy, "f6g8");
+        assertTrue(copy.isRepetition());
+        assertTrue(copy.isDraw());
+    }
+
+    private static void play(ChessGame game, String move) {
+        assertTrue(move, game.makeMove(Move.parse(move)));
+    }
+
+    private static void assertMatches(ChessGame game) {
+        Position snapshot = game.getSnapshot();
+        assertEquals(game.toFen(), snapshot.toFen());
+        assertEquals(game.getHash(), snapshot.getHash());
+        assertEquals(game.getHalfmoveClock(), snapshot.getHalfmoveClock());
+        for (int sq = 0; sq < 64; sq++) assertEquals(game.getPieceCode(sq), snapshot.getPieceCode(sq));
+        assertEquals(game.getLegalMoves(), snapshot.getLegalMoves());
+    }
+}
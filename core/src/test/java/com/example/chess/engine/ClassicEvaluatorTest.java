@@ -0,0 +1,74 @@
+package com.example.chess.engine;
+
+import com.example.chess.ChessGame;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ClassicEvaluatorTest {
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("weights", ".txt");
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void defaultWeightsRoundTrip() throws IOException {
+        int[] weights = ClassicEvaluator.defaultWeights();
+        ClassicEvaluator.saveWeights(weights, file);
+        assertArrayEquals(weights, ClassicEvaluator.loadWeights(file));
+    }
+
+    @Test
+    public void wideWeightsRoundTrip() throws IOException {
+        Random random = new Random(7);
+        int[] weights = new int[ClassicEvaluator.WEIGHT_COUNT];
+        for (int i = 0; i < weights.length; i++) weights[i] = random.nextInt(200_001) - 100_000;
+        // Values as wide as the column, which must still be kept apart
+        weights[0] = 99_999;
+        weights[1] = -9_999;
+        weights[ClassicEvaluator.PIECE_SQUARE] = -99_999;
+        ClassicEvaluator.saveWeights(weights, file);
+        assertArrayEquals(weights, ClassicEvaluator.loadWeights(file));
+    }
+
+    @Test
+    public void loadedWeightsEvaluateAsSaved() throws IOException {
+        int[] weights = ClassicEvaluator.defaultWeights();
+        weights[ClassicEvaluator.MATERIAL + 4] = 1000;
+        ClassicEvaluator.saveWeights(weights, file);
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/3QK3 w - - 0 1");
+        assertEquals(new ClassicEvaluator(weights).evaluate(game),
+                new ClassicEvaluator(ClassicEvaluator.loadWeights(file)).evaluate(game));
+    }
+
+    @Test(expected = IOException.class)
+    public void tooFewWeightsAreRejected() throws IOException {
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println("# Material only");
+            out.println("100 320 330 500 900 0");
+        }
+        ClassicEvaluator.loadWeights(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void badWeightIsRejected() throws IOException {
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println("100 320 x");
+        }
+        ClassicEvaluator.loadWeights(file);
+    }
+}
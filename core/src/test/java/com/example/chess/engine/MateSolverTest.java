@@ -0,0 +1,91 @@
+package com.example.chess.engine;
+
+import com.example.chess.ChessGame;
+import com.example.chess.Notation;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class MateSolverTest {
+    private static final String MATE_IN_ONE = "6k1/5ppp/8/8/8/8/5PPP/3RR1K1 w - - 0 1";
+    private static final String MATE_IN_TWO = "1rb4r/pkPp3p/1b1P3n/1Q6/N3Pp2/8/P1P3PP/7K w - - 0 1";
+    private static final String MATE_IN_THREE = "r1b1kb1r/pppp1ppp/5q2/4n3/3KP3/2N3PN/PPP4P/R1BQ1B1R b kq - 0 1";
+
+    private final MateSolver solver = new MateSolver(4);
+
+    @Test
+    public void mateInOne() {
+        MateSolver.Result result = solver.solve(ChessGame.fromFen(MATE_IN_ONE), 3);
+        assertEquals(MateSolver.Result.Status.MATE, result.status);
+        assertEquals(1, result.getMoves());
+        assertMates(MATE_IN_ONE, result.line);
+    }
+
+    @Test
+    public void mateInTwoEndingInUnderpromotion() {
+        MateSolver.Result result = solver.solve(ChessGame.fromFen(MATE_IN_TWO), 3);
+        assertEquals(MateSolver.Result.Status.MATE, result.status);
+        assertEquals("Qd5+ Ka6 cxb8=N#", san(MATE_IN_TWO, result.line));
+        assertMates(MATE_IN_TWO, result.line);
+    }
+
+    @Test
+    public void mateInThreeForBlack() {
+        MateSolver.Result result = solver.solve(ChessGame.fromFen(MATE_IN_THREE), 5);
+        assertEquals(MateSolver.Result.Status.MATE, result.status);
+        assertEquals(3, result.getMoves());
+        assertEquals("Bc5+ Kxc5 Qb6+ Kd5 Qd6#", san(MATE_IN_THREE, result.line));
+        assertMates(MATE_IN_THREE, result.line);
+    }
+
+    @Test
+    public void noMateWithinTheAskedLength() {
+        MateSolver.Result result = solver.solve(ChessGame.fromFen(MATE_IN_THREE), 2);
+        assertEquals(MateSolver.Result.Status.NO_MATE, result.status);
+        assertEquals(0, result.line.length);
+
+        assertEquals(MateSolver.Result.Status.NO_MATE, solver.solve(new ChessGame(), 3).status);
+    }
+
+    @Test
+    public void positionIsNotModified() {
+        ChessGame game = ChessGame.fromFen(MATE_IN_TWO);
+        solver.solve(game, 3);
+        assertEquals(MATE_IN_TWO, game.toFen());
+        assertEquals(0, game.getHistorySize());
+    }
+
+    @Test
+    public void cancelledBeforeStart() {
+        CancellationToken cancelled = new CancellationToken(new AtomicLong(1), 0);
+        MateSolver.Result result = solver.solve(ChessGame.fromFen(MATE_IN_THREE), 5, cancelled);
+        assertEquals(MateSolver.Result.Status.UNKNOWN, result.status);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void lengthIsChecked() {
+        solver.solve(new ChessGame(), MateSolver.MAX_MOVES + 1);
+    }
+
+    /** Replays {@code line} and checks that it ends in checkmate. */
+    private static void assertMates(String fen, int[] line) {
+        ChessGame game = ChessGame.fromFen(fen);
+        for (int move : line) assertTrue(game.doMove(move));
+        assertTrue(game.isInCheck());
+        assertTrue(game.getLegalMoves().isEmpty());
+    }
+
+    private static String san(String fen, int[] line) {
+        ChessGame game = ChessGame.fromFen(fen);
+        StringBuilder san = new StringBuilder();
+        for (int move : line) {
+            if (san.length() > 0) san.append(' ');
+            san.append(Notation.toSan(game, move));
+            game.doMove(move);
+        }
+        return san.toString();
+    }
+}
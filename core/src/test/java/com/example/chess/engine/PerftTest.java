@@ -0,0 +1,57 @@
+package com.example.chess.engine;
+
+import com.example.chess.ChessGame;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class PerftTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private static final long[] START_COUNTS = {1, 20, 400, 8902, 197281};
+    private static final long[] KIWIPETE_COUNTS = {1, 48, 2039, 97862};
+
+    @Test
+    public void startPositionCounts() {
+        checkCounts(new ChessGame(), START_COUNTS);
+    }
+
+    @Test
+    public void kiwipeteCounts() {
+        checkCounts(ChessGame.fromFen(KIWIPETE), KIWIPETE_COUNTS);
+    }
+
+    @Test
+    public void divideSumsToCount() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            long sum = 0;
+            for (Perft.Result result : new Perft(pool, 1, 0).divide(ChessGame.fromFen(KIWIPETE), 3)) sum += result.nodes;
+            assertEquals(KIWIPETE_COUNTS[3], sum);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void checkCounts(ChessGame game, long[] counts) {
+        String fen = game.toFen();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Perft parallel = new Perft(pool, 1, 0);
+            Perft cached = new Perft(pool, 1, 1);
+            for (int depth = 1; depth < counts.length; depth++) {
+                assertEquals("sequential, depth " + depth, counts[depth], Perft.countSequential(game, depth));
+                assertEquals("parallel, depth " + depth, counts[depth], parallel.count(game, depth));
+                assertEquals("cached, depth " + depth, counts[depth], cached.count(game, depth));
+            }
+            // Again, now answered from the cache
+            assertEquals(counts[counts.length - 1], cached.count(game, counts.length - 1));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals("position must be left unchanged", fen, game.toFen());
+    }
+}
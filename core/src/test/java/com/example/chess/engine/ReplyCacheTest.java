@@ -0,0 +1,76 @@
+package com.example.chess.engine;
+
+import com.example.chess.ChessGame;
+import com.example.chess.Move;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ReplyCacheTest {
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        ReplyCache cache = new ReplyCache(3);
+        cache.put(1, 101);
+        cache.put(2, 102);
+        cache.put(3, 103);
+        // Reading 1 makes 2 the least recently used
+        assertEquals(101, cache.get(1));
+        cache.put(4, 104);
+        assertEquals(3, cache.size());
+        assertFalse(cache.contains(2));
+        assertEquals(0, cache.get(2));
+        assertEquals(101, cache.get(1));
+        assertEquals(103, cache.get(3));
+        assertEquals(104, cache.get(4));
+    }
+
+    @Test
+    public void fillingPastCapacityKeepsTheNewest() {
+        ReplyCache cache = new ReplyCache(100);
+        for (long hash = 0; hash < 1000; hash++) cache.put(hash, (int) hash + 1);
+        assertEquals(100, cache.size());
+        for (long hash = 0; hash < 900; hash++) assertFalse(cache.contains(hash));
+        for (long hash = 900; hash < 1000; hash++) assertEquals((int) hash + 1, cache.get(hash));
+    }
+
+    @Test
+    public void replacingAnEntryCountsAsAUse() {
+        ReplyCache cache = new ReplyCache(2);
+        cache.put(1, 101);
+        cache.put(2, 102);
+        cache.put(1, 111);
+        cache.put(3, 103);
+        assertEquals(111, cache.get(1));
+        assertFalse(cache.contains(2));
+    }
+
+    @Test
+    public void keyedByPositionHash() {
+        ReplyCache cache = new ReplyCache(16);
+        int reply = Move.parse("e7e5").pack();
+        cache.put(play("g1f3", "g8f6", "b1c3").getHash(), reply);
+
+        // The same position reached by another route, or read from a FEN, shares the entry
+        assertEquals(reply, cache.get(play("b1c3", "g8f6", "g1f3").getHash()));
+        assertEquals(reply, cache.get(ChessGame.fromFen("rnbqkb1r/pppppppp/5n2/8/8/2N2N2/PPPPPPPP/R1BQKB1R b KQkq - 3 2").getHash()));
+        // A different side to move or set of rights is a different position
+        assertEquals(0, cache.get(ChessGame.fromFen("rnbqkb1r/pppppppp/5n2/8/8/2N2N2/PPPPPPPP/R1BQKB1R w KQkq - 3 2").getHash()));
+        assertEquals(0, cache.get(ChessGame.fromFen("rnbqkb1r/pppppppp/5n2/8/8/2N2N2/PPPPPPPP/R1BQKB1R b Kkq - 3 2").getHash()));
+        assertEquals(0, cache.get(new ChessGame().getHash()));
+    }
+
+    @Test
+    public void clearEmptiesTheCache() {
+        ReplyCache cache = new ReplyCache(4);
+        cache.put(7, 1);
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.get(7));
+    }
+
+    private static ChessGame play(String... moves) {
+        ChessGame game = new ChessGame();
+        for (String move : moves) assertTrue(move, game.makeMove(Move.parse(move)));
+        return game;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.chess.engine;
+
+import com.example.chess.ChessGame;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimeManagerTest {
+    private static final long OVERHEAD = TimeManager.DEFAULT_MOVE_OVERHEAD_MS;
+
+    private final TimeManager time = new TimeManager();
+
+    @Test
+    public void limitsNeverExceedTheUsableClock() {
+        long[] clocks = {1, 2, 5, 19, 20, 21, 39, 40, 41, 100, 300, 1000, 60_000, 3_600_000};
+        long[] increments = {0, 10, 100, 2000, 30_000};
+        int[] movesToGo = {0, 1, 2, 5, 40};
+        for (long clock : clocks) {
+            for (long increment : increments) {
+                for (int moves : movesToGo) {
+                    String what = clock + "+" + increment + " in " + moves;
+                    time.start(clock(clock, increment, moves), new ChessGame());
+                    long usable = clock - Math.min(OVERHEAD, clock / 2);
+                    assertTrue(what + ": hard " + time.getHardLimitMs(), time.getHardLimitMs() <= usable);
+                    assertTrue(what + ": optimum " + time.getOptimumMs(), time.getOptimumMs() <= time.getHardLimitMs());
+                    assertTrue(what, time.getOptimumMs() >= 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void lastMoveBeforeTheControlMayUseMostOfTheClock() {
+        time.start(clock(10_000, 0, 1), new ChessGame());
+        long usable = 10_000 - OVERHEAD;
+        assertTrue(time.getHardLimitMs() <= usable);
+        assertTrue(time.getHardLimitMs() >= usable * 8 / 10);
+
+        time.start(clock(10_000, 0, 40), new ChessGame());
+        assertTrue(time.getHardLimitMs() < usable / 4);
+    }
+
+    @Test
+    public void tinyClockStillLeavesTimeToMove() {
+        // Below the overhead, half the clock is kept back instead
+        time.start(clock(10, 0, 0), new ChessGame());
+        assertTrue(time.getHardLimitMs() <= 5);
+        assertTrue(time.getHardLimitMs() >= 0);
+
+        time.start(clock(30, 0, 1), new ChessGame());
+        assertTrue(time.getHardLimitMs() <= 15);
+        assertTrue(time.getHardLimitMs() > 0);
+    }
+
+    @Test
+    public void incrementOnlyStaysWithinTheClock() {
+        // Nearly nothing left but a large increment: the increment is not spent in advance
+        time.start(clock(60, 5000, 0), new ChessGame());
+        assertTrue(time.getHardLimitMs() <= 60 - Math.min(OVERHEAD, 30));
+        assertTrue(time.getOptimumMs() > 0);
+
+        time.start(clock(60_000, 0, 0), new ChessGame());
+        long withoutIncrement = time.getOptimumMs();
+        time.start(clock(60_000, 5000, 0), new ChessGame());
+        assertTrue(time.getOptimumMs() > withoutIncrement);
+    }
+
+    @Test
+    public void singleReplyStopsAfterTheFirstIteration() {
+        // Black's only legal move is Kh7
+        ChessGame game = ChessGame.fromFen("7k/8/8/8/8/8/8/K5R1 b - - 0 1");
+        assertEquals(1, game.getLegalMoves().size());
+        time.start(clock(60_000, 0, 0), game);
+        assertTrue(time.onIteration(1, 1, 0));
+
+        time.start(clock(60_000, 0, 0), new ChessGame());
+        assertFalse(time.onIteration(1, 1, 0));
+    }
+
+    @Test
+    public void fixedMoveTimeKeepsTheOverhead() {
+        time.start(SearchLimits.moveTime(1000), new ChessGame());
+        assertEquals(1000 - OVERHEAD, time.getHardLimitMs());
+        assertEquals(time.getHardLimitMs(), time.getOptimumMs());
+    }
+
+    @Test
+    public void untimedSearchHasNoLimits() {
+        time.start(SearchLimits.depth(5), new ChessGame());
+        assertEquals(-1, time.getHardLimitMs());
+        assertEquals(-1, time.getOptimumMs());
+        assertFalse(time.hardLimitReached(1_000_000));
+        assertFalse(time.onIteration(5, 1, 0));
+    }
+
+    private static SearchLimits clock(long timeMs, long incrementMs, int movesToGo) {
+        SearchLimits limits = new SearchLimits();
+        limits.whiteTimeMs = limits.blackTimeMs = timeMs;
+        limits.whiteIncrementMs = limits.blackIncrementMs = incrementMs;
+        limits.movesToGo = movesToGo;
+        return limits;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.chess.explorer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class SegmentTest {
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("segments").toFile();
+    }
+
+    @After
+    public void deleteDirectory() {
+        File[] files = directory.listFiles();
+        if (files != null) for (File file : files) file.delete();
+        directory.delete();
+    }
+
+    @Test
+    public void roundTripAcrossBlocks() throws IOException {
+        Random random = new Random(1);
+        TreeMap<Long, List<MoveStats>> positions = randomPositions(random, 5000);
+        // The extremes, and both sides of zero, where hash differences overflow
+        for (long hash : new long[] {Long.MIN_VALUE, Long.MIN_VALUE + 1, -1, 0, 1, Long.MAX_VALUE}) {
+            positions.put(hash, randomMoves(random));
+        }
+        File file = write("segment-0" + OpeningIndex.SEGMENT_SUFFIX, positions);
+        assertTrue("expected several blocks", file.length() > 8 * Segment.BLOCK_SIZE);
+
+        try (Segment segment = Segment.open(file)) {
+            for (Map.Entry<Long, List<MoveStats>> entry : positions.entrySet()) {
+                assertStats("hash " + entry.getKey(), entry.getValue(), segment.lookup(entry.getKey()));
+            }
+            for (int i = 0; i < 5000; i++) {
+                long absent = random.nextLong();
+                if (!positions.containsKey(absent)) assertTrue(segment.lookup(absent).isEmpty());
+            }
+
+            Segment.Cursor cursor = segment.cursor();
+            for (Map.Entry<Long, List<MoveStats>> entry : positions.entrySet()) {
+                assertTrue(cursor.next());
+                assertEquals(entry.getKey().longValue(), cursor.hash);
+                assertEquals(entry.getValue().size(), cursor.size);
+                for (int i = 0; i < cursor.size; i++) {
+                    MoveStats stats = entry.getValue().get(i);
+                    assertEquals(stats.move, cursor.moves[i]);
+                    assertEquals(stats.whiteWins, cursor.counts[3 * i]);
+                    assertEquals(stats.draws, cursor.counts[3 * i + 1]);
+                    assertEquals(stats.blackWins, cursor.counts[3 * i + 2]);
+                }
+            }
+            assertFalse(cursor.next());
+        }
+    }
+
+    @Test
+    public void absentBeforeAndAfterAllPositions() throws IOException {
+        TreeMap<Long, List<MoveStats>> positions = new TreeMap<>();
+        positions.put(-5L, Arrays.asList(new MoveStats(1, 1, 0, 0)));
+        positions.put(7L, Arrays.asList(new MoveStats(2, 0, 1, 0)));
+        try (Segment segment = Segment.open(write("small" + OpeningIndex.SEGMENT_SUFFIX, positions))) {
+            assertTrue(segment.lookup(Long.MIN_VALUE).isEmpty());
+            assertTrue(segment.lookup(-6).isEmpty());
+            assertTrue(segment.lookup(0).isEmpty());
+            assertTrue(segment.lookup(8).isEmpty());
+            assertTrue(segment.lookup(Long.MAX_VALUE).isEmpty());
+            assertStats("-5", positions.get(-5L), segment.lookup(-5));
+        }
+    }
+
+    @Test
+    public void segmentsAreSummed() throws IOException {
+        Random random = new Random(2);
+        TreeMap<Long, List<MoveStats>> first = randomPositions(random, 3000);
+        TreeMap<Long, List<MoveStats>> second = randomPositions(random, 3000);
+        // Half of the second segment's positions also appear in the first
+        int shared = 0;
+        for (long hash : first.keySet()) {
+            if (shared++ % 2 == 0) second.put(hash, randomMoves(random));
+        }
+        write("segment-0" + OpeningIndex.SEGMENT_SUFFIX, first);
+        write("segment-1" + OpeningIndex.SEGMENT_SUFFIX, second);
+
+        try (OpeningIndex index = OpeningIndex.open(directory)) {
+            assertEquals(2, index.getSegmentCount());
+            TreeMap<Long, List<MoveStats>> all = new TreeMap<>(first);
+            all.putAll(second);
+            for (long hash : all.keySet()) {
+                Map<Integer, long[]> expected = new HashMap<>();
+                for (TreeMap<Long, List<MoveStats>> segment : Arrays.asList(first, second)) {
+                    for (MoveStats stats : segment.getOrDefault(hash, new ArrayList<>())) {
+                        long[] sum = expected.computeIfAbsent(stats.move, move -> new long[3]);
+                        sum[0] += stats.whiteWins;
+                        sum[1] += stats.draws;
+                        sum[2] += stats.blackWins;
+                    }
+                }
+
+                List<MoveStats> found = index.lookup(hash);
+                assertEquals(expected.size(), found.size());
+                for (int i = 0; i < found.size(); i++) {
+                    MoveStats stats = found.get(i);
+                    assertArrayEquals(expected.get(stats.move), new long[] {stats.whiteWins, stats.draws, stats.blackWins});
+                    if (i > 0) assertTrue("most played first", found.get(i - 1).getGames() >= stats.getGames());
+                }
+            }
+            assertTrue(index.lookup(random.nextLong()).isEmpty());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void positionsMustBeSorted() throws IOException {
+        try (SegmentWriter writer = new SegmentWriter(new File(directory, "unsorted" + OpeningIndex.SEGMENT_SUFFIX))) {
+            writer.add(5, 1, 1, 0, 0);
+            writer.add(-5, 1, 1, 0, 0);
+        }
+    }
+
+    private File write(String name, TreeMap<Long, List<MoveStats>> positions) throws IOException {
+        File file = new File(directory, name);
+        try (SegmentWriter writer = new SegmentWriter(file)) {
+            for (Map.Entry<Long, List<MoveStats>> entry : positions.entrySet()) {
+                for (MoveStats stats : entry.getValue()) {
+                    writer.add(entry.getKey(), stats.move, stats.whiteWins, stats.draws, stats.blackWins);
+                }
+            }
+        }
+        return file;
+    }
+
+    private static TreeMap<Long, List<MoveStats>> randomPositions(Random random, int count) {
+        TreeMap<Long, List<MoveStats>> positions = new TreeMap<>();
+        while (positions.size() < count) positions.put(random.nextLong(), randomMoves(random));
+        return positions;
+    }
+
+    /** One to four moves in ascending order, some with counts that need long varints. */
+    private static List<MoveStats> randomMoves(Random random) {
+        List<MoveStats> moves = new ArrayList<>();
+        int move = 0;
+        for (int i = 1 + random.nextInt(4); i > 0; i--) {
+            move += 1 + random.nextInt(4000);
+            long scale = random.nextInt(10) == 0 ? 1L << 40 : 100;
+            moves.add(new MoveStats(move, (long) (random.nextDouble() * scale), random.nextInt(100), random.nextInt(100)));
+        }
+        return moves;
+    }
+
+    private static void assertStats(String message, List<MoveStats> expected, List<MoveStats> actual) {
+        assertEquals(message, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            MoveStats a = expected.get(i), b = actual.get(i);
+            assertArrayEquals(message, new long[] {a.move, a.whiteWins, a.draws, a.blackWins},
+                    new long[] {b.move, b.whiteWins, b.draws, b.blackWins});
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.chess.metrics;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+    @Test
+    public void uniformPercentilesWithinABucket() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100_000; value++) histogram.record(value);
+        assertWithinBucket(50_000, histogram.getPercentile(50));
+        assertWithinBucket(99_000, histogram.getPercentile(99));
+        assertEquals(100_000, histogram.getPercentile(100));
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(50_000.5, histogram.getMean(), 1e-9);
+    }
+
+    @Test
+    public void skewedPercentilesWithinABucket() {
+        // Log-normal, like latencies: most values small, a long tail of large ones
+        Random random = new Random(11);
+        long[] values = new long[200_000];
+        Histogram histogram = new Histogram();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(10 + 1.5 * random.nextGaussian());
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double percentile : new double[] {1, 25, 50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+            assertWithinBucket(exact, histogram.getPercentile(percentile));
+        }
+        assertEquals(values[values.length - 1], histogram.getMax());
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        for (int i = 0; i < 10; i++) histogram.record(i % 4);
+        assertEquals(0, histogram.getPercentile(10));
+        assertEquals(1, histogram.getPercentile(50));
+        assertEquals(3, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void boundNeverExceedsTheMaximum() {
+        Histogram histogram = new Histogram();
+        histogram.record(1000);
+        // 1000 falls in the bucket up to 1023, but nothing above 1000 was seen
+        assertEquals(1000, histogram.getPercentile(50));
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void emptyAndReset() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0, histogram.getMean(), 0);
+        histogram.record(5);
+        histogram.record(-3);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void concurrentRecordsAreAllCounted() throws InterruptedException {
+        Histogram histogram = new Histogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (long value = 1; value <= 50_000; value++) histogram.record(value);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertEquals(200_000, histogram.getCount());
+        assertEquals(50_000, histogram.getMax());
+        assertWithinBucket(25_000, histogram.getPercentile(50));
+    }
+
+    /** The reported bound is never below the exact value and at most a quarter above it. */
+    private static void assertWithinBucket(long exact, long reported) {
+        assertTrue(reported + " below " + exact, reported >= exact);
+        assertTrue(reported + " too far above " + exact, reported <= exact + exact / 4);
+    }
+}
@@ -0,0 +1,84 @@
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+application {
+    mainClass = "com.example.chess.server.GameServer"
+}
+
+// The NNUE evaluator's SIMD kernels use the incubating Vector API. Without the module at run time
+// it falls back to scalar loops, so only the launchers that search ask for it.
+val vectorModule = listOf("--add-modules", "jdk.incubator.vector")
+
+tasks.withType<JavaCompile>().configureEach {
+    options.compilerArgs.addAll(vectorModule)
+}
+
+tasks.test {
+    jvmArgs(vectorModule)
+}
+
+dependencies {
+    implementation(project(":core"))
+    testImplementation(libs.junit)
+}
+
+tasks.register<JavaExec>("loadGenerator") {
+    description = "Plays random games against a running GameServer and reports throughput and latency."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.example.chess.server.LoadGenerator"
+}
+
+// Launcher for the UCI engine, for use from chess GUIs and tournament managers
+val uciStartScripts by tasks.registering(CreateStartScripts::class) {
+    applicationName = "chess-uci"
+    mainClass = "com.example.chess.uci.UciEngine"
+    defaultJvmOpts = vectorModule
+    outputDir = layout.buildDirectory.dir("uciScripts").get().asFile
+    classpath = tasks.jar.get().outputs.files + configurations.runtimeClasspath.get()
+}
+
+distributions.main {
+    contents {
+        from(uciStartScripts) {
+            into("bin")
+        }
+    }
+}
+
+tasks.register<JavaExec>("tournament") {
+    description = "Plays an engine-vs-engine match and reports Elo and SPRT results."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.example.chess.tournament.TournamentRunner"
+    jvmArgs(vectorModule)
+}
+
+tasks.register<JavaExec>("perft") {
+    description = "Counts move generation leaf nodes in parallel; --suite checks known positions."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.example.chess.perft.PerftRunner"
+}
+
+tasks.register<JavaExec>("puzzles") {
+    description = "Solves a file of FEN or EPD mate puzzles with the proof-number mate solver."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.example.chess.puzzle.PuzzleRunner"
+}
+
+tasks.register<JavaExec>("indexGames") {
+    description = "Builds an opening explorer index from PGN game archives."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.example.chess.indexer.ExplorerIndexer"
+}
+
+tasks.register<JavaExec>("tune") {
+    description = "Tunes the classic evaluator's weights to a file of positions labelled with game results."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.example.chess.tuner.TexelTuner"
+    maxHeapSize = "4g"
+}
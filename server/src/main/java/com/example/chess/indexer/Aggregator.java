@@ -0,0 +1,123 @@
+package com.example.chess.indexer;
+
+import com.example.chess.explorer.SegmentWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Counts of (position, move) pairs with game results, in an open-addressing table of primitive
+ * arrays. Used by one indexing thread; when it fills up it is sorted and written out as a segment.
+ */
+final class Aggregator {
+    private static final long EMPTY = 0;
+
+    private final int capacity;
+    private final int mask;
+    private final long[] hashes;
+    private final int[] moves;
+    private final int[] counts;
+    private int size;
+
+    /** @param maxEntries entries held before {@link #isFull} says to flush */
+    Aggregator(int maxEntries) {
+        this.capacity = Integer.highestOneBit(Math.max(1024, maxEntries) * 2 - 1) * 2;
+        this.mask = capacity - 1;
+        hashes = new long[capacity];
+        moves = new int[capacity];
+        counts = new int[3 * capacity];
+    }
+
+    /** Records {@code move} played from position {@code hash} in a game whose result was 0 (white won), 1 (draw) or 2. */
+    void add(long hash, int move, int result) {
+        int slot = (int) ((hash ^ (hash >>> 29) ^ move * 0x9E3779B9L) & mask);
+        while (moves[slot] != EMPTY && (hashes[slot] != hash || moves[slot] != move)) slot = (slot + 1) & mask;
+        if (moves[slot] == EMPTY) {
+            hashes[slot] = hash;
+            moves[slot] = move;
+            size++;
+        }
+        counts[3 * slot + result]++;
+    }
+
+    boolean isFull() {
+        return size >= capacity / 2;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Writes all entries, sorted, to a new segment file and empties the table. */
+    void flush(File file) throws IOException {
+        // Pack the used slots to the front, then sort them in place
+        int n = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (moves[i] == EMPTY) continue;
+            if (i != n) {
+                hashes[n] = hashes[i];
+                moves[n] = moves[i];
+                System.arraycopy(counts, 3 * i, counts, 3 * n, 3);
+                moves[i] = (int) EMPTY;
+            }
+            n++;
+        }
+        sort(0, n - 1);
+        try (SegmentWriter writer = new SegmentWriter(file)) {
+            for (int i = 0; i < n; i++) {
+                writer.add(hashes[i], moves[i], counts[3 * i], counts[3 * i + 1], counts[3 * i + 2]);
+            }
+        }
+        Arrays.fill(moves, 0, n, (int) EMPTY);
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+
+    private boolean less(int i, int j) {
+        return hashes[i] != hashes[j] ? hashes[i] < hashes[j] : moves[i] < moves[j];
+    }
+
+    // Quicksort over the parallel arrays, recursing into the smaller half
+    private void sort(int lo, int hi) {
+        while (hi - lo > 16) {
+            int mid = (lo + hi) >>> 1;
+            if (less(mid, lo)) swap(mid, lo);
+            if (less(hi, lo)) swap(hi, lo);
+            if (less(hi, mid)) swap(hi, mid);
+            swap(mid, hi - 1);
+            int pivot = hi - 1, i = lo, j = hi - 1;
+            while (true) {
+                while (less(++i, pivot)) { }
+                while (less(pivot, --j)) { }
+                if (i >= j) break;
+                swap(i, j);
+            }
+            swap(i, hi - 1);
+            if (i - lo < hi - i) {
+                sort(lo, i - 1);
+                lo = i + 1;
+            } else {
+                sort(i + 1, hi);
+                hi = i - 1;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && less(j, j - 1); j--) swap(j, j - 1);
+        }
+    }
+
+    private void swap(int i, int j) {
+        long h = hashes[i];
+        hashes[i] = hashes[j];
+        hashes[j] = h;
+        int m = moves[i];
+        moves[i] = moves[j];
+        moves[j] = m;
+        for (int k = 0; k < 3; k++) {
+            int c = counts[3 * i + k];
+            counts[3 * i + k] = counts[3 * j + k];
+            counts[3 * j + k] = c;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.chess.indexer;
+
+import com.example.chess.ChessGame;
+import com.example.chess.Notation;
+import com.example.chess.explorer.OpeningIndex;
+import com.example.chess.explorer.Segment;
+import com.example.chess.explorer.SegmentWriter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Builds an {@link OpeningIndex} from PGN game archives. Games are replayed on all cores, each
+ * thread counting moves and results per position in its own table and writing it out as a
+ * sorted segment whenever it fills up. The segments are then merged into as few output
+ * segments as the mapping size allows. Indexing into a directory that already has segments adds
+ * the new games to the old ones.
+ *
+ * <pre>
+ * ExplorerIndexer --out dir [--max-plies 40] [--threads N] [--entries 1000000] games.pgn...
+ * </pre>
+ *
+ * Games without a decisive or drawn result are skipped, as is the rest of a game after a move
+ * that cannot be read.
+ */
+public class ExplorerIndexer {
+    private static final int GAMES_PER_TASK = 256;
+    // Well below the 2 GB a single mapping can cover
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private final Path partsDirectory;
+    private final int maxPlies;
+    private final int entriesPerThread;
+    private final List<Aggregator> aggregators = new ArrayList<>();
+    private final ThreadLocal<Aggregator> aggregator;
+    private final AtomicInteger partCount = new AtomicInteger();
+    private final AtomicLong games = new AtomicLong(), skipped = new AtomicLong(), positions = new AtomicLong();
+
+    ExplorerIndexer(Path partsDirectory, int maxPlies, int entriesPerThread) {
+        this.partsDirectory = partsDirectory;
+        this.maxPlies = maxPlies;
+        this.entriesPerThread = entriesPerThread;
+        this.aggregator = ThreadLocal.withInitial(() -> {
+            Aggregator created = new Aggregator(this.entriesPerThread);
+            synchronized (aggregators) {
+                aggregators.add(created);
+            }
+            return created;
+        });
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String out = null;
+        int maxPlies = 40;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int entries = 1_000_000;
+        List<String> inputs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : "";
+            switch (args[i]) {
+                case "--out": out = value; i++; break;
+                case "--max-plies": maxPlies = Integer.parseInt(value); i++; break;
+                case "--threads": threads = Integer.parseInt(value); i++; break;
+                case "--entries": entries = Integer.parseInt(value); i++; break;
+                default:
+                    if (args[i].startsWith("--")) throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                    inputs.add(args[i]);
+            }
+        }
+        if (out == null || inputs.isEmpty()) throw new IllegalArgumentException("Need --out and at least one PGN file");
+
+        Path outDirectory = Files.createDirectories(Paths.get(out));
+        Path parts = Files.createTempDirectory(outDirectory, "parts");
+        long start = System.nanoTime();
+        ExplorerIndexer indexer = new ExplorerIndexer(parts, maxPlies, entries);
+        try {
+            indexer.index(inputs, threads);
+            List<File> written = indexer.merge(outDirectory);
+            long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            System.out.printf("Games: %d  Skipped: %d  Positions: %d  Segments: %s  Time: %d ms  Games/s: %d%n",
+                    indexer.games.get(), indexer.skipped.get(), indexer.positions.get(), written, elapsedMs,
+                    indexer.games.get() * 1000 / elapsedMs);
+        } finally {
+            try (Stream<Path> leftovers = Files.list(parts)) {
+                for (Path part : (Iterable<Path>) leftovers::iterator) Files.delete(part);
+            }
+            Files.delete(parts);
+        }
+    }
+
+    void index(List<String> inputs, int threads) throws IOException, InterruptedException {
+        // A short queue with the reader running overflow batches itself keeps memory bounded
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(2 * threads), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            for (String input : inputs) {
+                try (BufferedReader in = Files.newBufferedReader(Paths.get(input), StandardCharsets.ISO_8859_1)) {
+                    List<PgnGame> batch = new ArrayList<>(GAMES_PER_TASK);
+                    PgnGame game;
+                    while ((game = PgnGame.read(in)) != null) {
+                        batch.add(game);
+                        if (batch.size() == GAMES_PER_TASK) {
+                            submit(pool, batch);
+                            batch = new ArrayList<>(GAMES_PER_TASK);
+                        }
+                    }
+                    submit(pool, batch);
+                }
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+        for (Aggregator table : aggregators) {
+            if (!table.isEmpty()) table.flush(nextPart());
+        }
+    }
+
+    private void submit(ThreadPoolExecutor pool, List<PgnGame> batch) {
+        if (batch.isEmpty()) return;
+        pool.execute(() -> {
+            Aggregator table = aggregator.get();
+            for (PgnGame game : batch) {
+                try {
+                    replay(game, table);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    private void replay(PgnGame record, Aggregator table) throws IOException {
+        if (record.result == PgnGame.UNKNOWN) {
+            skipped.incrementAndGet();
+            return;
+        }
+        ChessGame game;
+        try {
+            game = record.fen == null ? new ChessGame() : ChessGame.fromFen(record.fen);
+        } catch (IllegalArgumentException e) {
+            skipped.incrementAndGet();
+            return;
+        }
+        games.incrementAndGet();
+        int plies = 0;
+        for (String san : record.moves()) {
+            if (plies++ == maxPlies) break;
+            int move;
+            try {
+                move = Notation.fromSan(game, san);
+            } catch (IllegalArgumentException e) {
+                break;
+            }
+            table.add(game.getHash(), move, record.result);
+            positions.incrementAndGet();
+            game.doMove(move);
+            if (table.isFull()) table.flush(nextPart());
+        }
+    }
+
+    private File nextPart() {
+        return partsDirectory.resolve("part-" + partCount.getAndIncrement() + OpeningIndex.SEGMENT_SUFFIX).toFile();
+    }
+
+    /** Merges all parts into new segments of {@code directory}, returning the files written. */
+    List<File> merge(Path directory) throws IOException {
+        File[] partFiles = partsDirectory.toFile().listFiles();
+        List<File> written = new ArrayList<>();
+        if (partFiles == null || partFiles.length == 0) return written;
+
+        List<Segment> inputs = new ArrayList<>();
+        PriorityQueue<Segment.Cursor> queue = new PriorityQueue<>((a, b) -> Long.compare(a.hash, b.hash));
+        SegmentWriter writer = null;
+        try {
+            for (File file : partFiles) {
+                Segment segment = Segment.open(file);
+                inputs.add(segment);
+                Segment.Cursor cursor = segment.cursor();
+                if (cursor.next()) queue.add(cursor);
+            }
+
+            int[] moves = new int[64];
+            long[] counts = new long[3 * 64];
+            while (!queue.isEmpty()) {
+                // All moves of the smallest hash, gathered from every part that has it
+                long hash = queue.peek().hash;
+                int size = 0;
+                while (!queue.isEmpty() && queue.peek().hash == hash) {
+                    Segment.Cursor cursor = queue.poll();
+                    if (size + cursor.size > moves.length) {
+                        moves = Arrays.copyOf(moves, 2 * (size + cursor.size));
+                        counts = Arrays.copyOf(counts, 6 * (size + cursor.size));
+                    }
+                    System.arraycopy(cursor.moves, 0, moves, size, cursor.size);
+                    System.arraycopy(cursor.counts, 0, counts, 3 * size, 3 * cursor.size);
+                    size += cursor.size;
+                    if (cursor.next()) queue.add(cursor);
+                }
+
+                if (writer == null || writer.size() >= MAX_SEGMENT_BYTES) {
+                    if (writer != null) writer.close();
+                    File file = nextSegment(directory);
+                    written.add(file);
+                    writer = new SegmentWriter(file);
+                }
+                writeMerged(writer, hash, moves, counts, size);
+            }
+        } finally {
+            if (writer != null) writer.close();
+            for (Segment segment : inputs) segment.close();
+        }
+        return written;
+    }
+
+    // Sorts the gathered moves and adds up the counts of moves found in more than one part
+    private static void writeMerged(SegmentWriter writer, long hash, int[] moves, long[] counts, int size) throws IOException {
+        for (int i = 1; i < size; i++) {
+            for (int j = i; j > 0 && moves[j] < moves[j - 1]; j--) {
+                int m = moves[j];
+                moves[j] = moves[j - 1];
+                moves[j - 1] = m;
+                for (int k = 0; k < 3; k++) {
+                    long c = counts[3 * j + k];
+                    counts[3 * j + k] = counts[3 * j - 3 + k];
+                    counts[3 * j - 3 + k] = c;
+                }
+            }
+        }
+        for (int i = 0; i < size; ) {
+            long white = 0, draws = 0, black = 0;
+            int move = moves[i];
+            for (; i < size && moves[i] == move; i++) {
+                white += counts[3 * i];
+                draws += counts[3 * i + 1];
+                black += counts[3 * i + 2];
+            }
+            writer.add(hash, move, white, draws, black);
+        }
+    }
+
+    private static File nextSegment(Path directory) {
+        for (int n = 0; ; n++) {
+            File file = directory.resolve("segment-" + n + OpeningIndex.SEGMENT_SUFFIX).toFile();
+            if (!file.exists()) return file;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.chess.indexer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** The parts of one PGN game that the indexer needs: its result and the SAN moves of the main line. */
+final class PgnGame {
+    static final int WHITE_WINS = 0, DRAW = 1, BLACK_WINS = 2, UNKNOWN = -1;
+
+    private static final int MARK_LIMIT = 1 << 16;
+
+    final int result;
+    final String fen; // null for the standard start
+    final String movetext;
+
+    private PgnGame(int result, String fen, String movetext) {
+        this.result = result;
+        this.fen = fen;
+        this.movetext = movetext;
+    }
+
+    /** Reads the next game, or returns null at the end of the input. */
+    static PgnGame read(BufferedReader in) throws IOException {
+        String result = null, fen = null;
+        StringBuilder movetext = new StringBuilder();
+        String line;
+        boolean inMoves = false;
+        while (true) {
+            in.mark(MARK_LIMIT);
+            if ((line = in.readLine()) == null) break;
+            line = line.trim();
+            if (line.startsWith("[") && inMoves) {
+                // The next game's tags without a blank line before them
+                in.reset();
+                break;
+            }
+            if (line.startsWith("[")) {
+                if (line.startsWith("[Result ")) result = tagValue(line);
+                if (line.startsWith("[FEN ")) fen = tagValue(line);
+                continue;
+            }
+            if (line.isEmpty()) {
+                if (inMoves) break;
+                continue;
+            }
+            inMoves = true;
+            movetext.append(line).append('\n');
+        }
+        if (result == null && movetext.length() == 0) return null;
+        return new PgnGame(parseResult(result), fen, movetext.toString());
+    }
+
+    /** SAN moves of the main line, without move numbers, comments, variations or annotations. */
+    List<String> moves() {
+        List<String> moves = new ArrayList<>(80);
+        int depth = 0; // open variations
+        int i = 0, n = movetext.length();
+        while (i < n) {
+            char c = movetext.charAt(i);
+            if (c == '{') {
+                int close = movetext.indexOf('}', i);
+                i = close < 0 ? n : close + 1;
+            } else if (c == ';') {
+                int close = movetext.indexOf('\n', i);
+                i = close < 0 ? n : close + 1;
+            } else if (c == '(') {
+                depth++;
+                i++;
+            } else if (c == ')') {
+                depth = Math.max(0, depth - 1);
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else {
+                int start = i;
+                while (i < n && !Character.isWhitespace(movetext.charAt(i)) && "{;()".indexOf(movetext.charAt(i)) < 0) i++;
+                if (depth > 0) continue;
+                String token = movetext.substring(start, i);
+                // Move numbers may be glued to the move: "12.Nf3", "12...Nf6"
+                int dot = token.lastIndexOf('.');
+                if (dot >= 0) token = token.substring(dot + 1);
+                if (token.isEmpty() || token.charAt(0) == '$' || isResult(token)) continue;
+                moves.add(token);
+            }
+        }
+        return moves;
+    }
+
+    private static String tagValue(String line) {
+        int open = line.indexOf('"'), close = line.lastIndexOf('"');
+        return open >= 0 && close > open ? line.substring(open + 1, close) : "";
+    }
+
+    private static int parseResult(String result) {
+        if ("1-0".equals(result)) return WHITE_WINS;
+        if ("0-1".equals(result)) return BLACK_WINS;
+        if ("1/2-1/2".equals(result)) return DRAW;
+        return UNKNOWN;
+    }
+
+    private static boolean isResult(String token) {
+        return token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*");
+    }
+}
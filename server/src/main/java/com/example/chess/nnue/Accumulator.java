@@ -0,0 +1,124 @@
+package com.example.chess.nnue;
+
+import com.example.chess.ChessGame;
+import com.example.chess.Move;
+import com.example.chess.MoveObserver;
+
+import java.util.Arrays;
+
+/**
+ * The hidden layer of a {@link Network} before activation, for both sides, kept on a stack that
+ * follows the moves of one game: a move pushes a copy of the top entry with the changed squares
+ * applied, taking it back pops it. A quiet move costs one pass over the hidden layer per side
+ * instead of one per piece.
+ *
+ * <p>Entries that cannot be derived from their parent, such as the first one or one reached by
+ * taking back moves played before the game was followed, are rebuilt from the board when needed.
+ */
+final class Accumulator implements MoveObserver {
+    private static final int INITIAL_DEPTH = 128;
+
+    private final Network network;
+    private final Kernels kernels;
+    private final int hidden;
+
+    // Entry k of each stack starts at k * hidden
+    private short[] white, black;
+    private boolean[] valid;
+    private int top;
+
+    Accumulator(Network network, Kernels kernels) {
+        this.network = network;
+        this.kernels = kernels;
+        this.hidden = network.hidden;
+        white = new short[INITIAL_DEPTH * hidden];
+        black = new short[INITIAL_DEPTH * hidden];
+        valid = new boolean[INITIAL_DEPTH];
+    }
+
+    /** Starts following {@code game} from its current position. */
+    void reset() {
+        top = 0;
+        valid[0] = false;
+    }
+
+    /** Network output in centipawns from the side to move's point of view. */
+    int evaluate(ChessGame game) {
+        if (!valid[top]) refresh(game);
+        int offset = top * hidden;
+        short[] us = game.isWhiteTurn() ? white : black;
+        short[] them = game.isWhiteTurn() ? black : white;
+        int sum = kernels.forward(us, offset, them, offset, network.outputWeights, hidden, Network.QA);
+        return (int) ((sum + (long) network.outputBias) * Network.SCALE / (Network.QA * Network.QB));
+    }
+
+    @Override
+    public void onMove(ChessGame game, int move, byte piece, byte captured) {
+        if (top + 1 == valid.length) grow();
+        int parent = top++;
+        valid[top] = valid[parent];
+        if (!valid[top]) return;
+
+        int from = Move.packedFrom(move), to = Move.packedTo(move);
+        int d = top * hidden, s = parent * hidden;
+        byte placed = game.getPieceCode(to);
+        short[] weights = network.inputWeights;
+        kernels.addSub(white, d, white, s, weights, network.whiteRow(placed, to), network.whiteRow(piece, from), hidden);
+        kernels.addSub(black, d, black, s, weights, network.blackRow(placed, to), network.blackRow(piece, from), hidden);
+
+        int type = piece & 7;
+        if (captured != ChessGame.EMPTY) {
+            remove(d, captured, to);
+        } else if (type == ChessGame.PAWN && (from & 7) != (to & 7)) {
+            // En passant: the captured pawn stood beside the mover's origin
+            int victim = (from & ~7) | (to & 7);
+            remove(d, (byte) (piece ^ ChessGame.BLACK), victim);
+        } else if (type == ChessGame.KING && (to - from == 2 || from - to == 2)) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = to > from ? from + 1 : from - 1;
+            byte rook = game.getPieceCode(rookTo);
+            kernels.addSub(white, d, white, d, weights, network.whiteRow(rook, rookTo), network.whiteRow(rook, rookFrom), hidden);
+            kernels.addSub(black, d, black, d, weights, network.blackRow(rook, rookTo), network.blackRow(rook, rookFrom), hidden);
+        }
+    }
+
+    @Override
+    public void onUndo(ChessGame game) {
+        if (top > 0) {
+            top--;
+        } else {
+            // A move from before the game was followed: the entry must be rebuilt
+            valid[0] = false;
+        }
+    }
+
+    @Override
+    public void onReset(ChessGame game) {
+        // Every entry on the stack assumed the old board
+        Arrays.fill(valid, 0, top + 1, false);
+    }
+
+    private void remove(int d, byte piece, int square) {
+        kernels.sub(white, d, network.inputWeights, network.whiteRow(piece, square), hidden);
+        kernels.sub(black, d, network.inputWeights, network.blackRow(piece, square), hidden);
+    }
+
+    private void refresh(ChessGame game) {
+        int d = top * hidden;
+        System.arraycopy(network.hiddenBiases, 0, white, d, hidden);
+        System.arraycopy(network.hiddenBiases, 0, black, d, hidden);
+        for (int sq = 0; sq < 64; sq++) {
+            byte piece = game.getPieceCode(sq);
+            if (piece == ChessGame.EMPTY) continue;
+            kernels.add(white, d, network.inputWeights, network.whiteRow(piece, sq), hidden);
+            kernels.add(black, d, network.inputWeights, network.blackRow(piece, sq), hidden);
+        }
+        valid[top] = true;
+    }
+
+    private void grow() {
+        white = Arrays.copyOf(white, white.length * 2);
+        black = Arrays.copyOf(black, black.length * 2);
+        valid = Arrays.copyOf(valid, valid.length * 2);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.chess.nnue;
+
+/**
+ * The arithmetic of network inference on int16 vectors. {@link #best} picks the SIMD version
+ * when the JDK's Vector API module is present and plain loops otherwise.
+ */
+abstract class Kernels {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    static Kernels best() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                // Loaded by name so that this class never links against the module when it is missing
+                return (Kernels) Class.forName("com.example.chess.nnue.VectorKernels").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall through to the scalar code
+            }
+        }
+        return new ScalarKernels();
+    }
+
+    /** Whether the SIMD version is in use. */
+    abstract boolean isVectorized();
+
+    /** {@code dst[d + i] = src[s + i] + weights[add + i] - weights[sub + i]} for i below {@code n}. */
+    abstract void addSub(short[] dst, int d, short[] src, int s, short[] weights, int add, int sub, int n);
+
+    /** {@code acc[a + i] += weights[add + i]} for i below {@code n}. */
+    abstract void add(short[] acc, int a, short[] weights, int add, int n);
+
+    /** {@code acc[a + i] -= weights[sub + i]} for i below {@code n}. */
+    abstract void sub(short[] acc, int a, short[] weights, int sub, int n);
+
+    /**
+     * Sum over i below {@code n} of {@code clamp(us[u + i], 0, max) * weights[i]} plus
+     * {@code clamp(them[t + i], 0, max) * weights[n + i]}.
+     */
+    abstract int forward(short[] us, int u, short[] them, int t, short[] weights, int n, int max);
+}
@@ -0,0 +1,83 @@
+package com.example.chess.nnue;
+
+import com.example.chess.ChessGame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Quantized weights of a small evaluation network: 768 piece-square inputs seen from each side,
+ * one hidden layer shared by both sides, and one output.
+ *
+ * <p>Input {@code (piece * 64 + square)} lists the perspective's own pieces (pawn to king) before
+ * the opponent's, with squares from a1 to h8 as seen by that side, so black's view is the board
+ * turned around. The hidden layer is clamped to 0..{@link #QA} and multiplied by the output
+ * weights, the side to move's half first; the sum has a scale of {@code QA * QB}, and one unit
+ * of output is {@link #SCALE} centipawns.
+ *
+ * <p>The file is little-endian: the ASCII magic "NNUE", an int32 version (1), an int32 hidden
+ * size, then int16 values for the input weights (768 rows of hidden size), the hidden biases,
+ * the output weights (twice the hidden size) and the output bias.
+ */
+public final class Network {
+    public static final int INPUTS = 12 * 64;
+    public static final int QA = 255, QB = 64, SCALE = 400;
+
+    private static final int MAGIC = 'N' | 'N' << 8 | 'U' << 16 | 'E' << 24;
+    private static final int VERSION = 1;
+    private static final int MAX_HIDDEN = 4096;
+
+    final int hidden;
+    final short[] inputWeights;
+    final short[] hiddenBiases;
+    final short[] outputWeights;
+    final short outputBias;
+
+    public Network(int hidden, short[] inputWeights, short[] hiddenBiases, short[] outputWeights, short outputBias) {
+        if (hidden <= 0 || inputWeights.length != INPUTS * hidden || hiddenBiases.length != hidden
+                || outputWeights.length != 2 * hidden) {
+            throw new IllegalArgumentException("Weight arrays do not match hidden size " + hidden);
+        }
+        this.hidden = hidden;
+        this.inputWeights = inputWeights.clone();
+        this.hiddenBiases = hiddenBiases.clone();
+        this.outputWeights = outputWeights.clone();
+        this.outputBias = outputBias;
+    }
+
+    public static Network load(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) throw new IOException("Not a network file: " + file);
+        int version = buffer.getInt();
+        if (version != VERSION) throw new IOException("Unsupported network version " + version + ": " + file);
+        int hidden = buffer.getInt();
+        if (hidden <= 0 || hidden > MAX_HIDDEN) throw new IOException("Bad hidden size " + hidden + ": " + file);
+        if (buffer.remaining() != 2 * ((INPUTS + 3) * hidden + 1)) throw new IOException("Truncated network file: " + file);
+
+        short[] inputWeights = new short[INPUTS * hidden];
+        short[] hiddenBiases = new short[hidden];
+        short[] outputWeights = new short[2 * hidden];
+        buffer.asShortBuffer().get(inputWeights).get(hiddenBiases).get(outputWeights);
+        short outputBias = buffer.getShort(buffer.limit() - 2);
+        return new Network(hidden, inputWeights, hiddenBiases, outputWeights, outputBias);
+    }
+
+    public int getHiddenSize() {
+        return hidden;
+    }
+
+    /** Offset of the input weight row for {@code piece} on {@code square} (a8 first) seen by white. */
+    int whiteRow(byte piece, int square) {
+        int index = ((piece & ChessGame.BLACK) == 0 ? 0 : 6) + (piece & 7) - 1;
+        return ((index << 6) + (square ^ 56)) * hidden;
+    }
+
+    /** Offset of the input weight row for {@code piece} on {@code square} (a8 first) seen by black. */
+    int blackRow(byte piece, int square) {
+        int index = ((piece & ChessGame.BLACK) != 0 ? 0 : 6) + (piece & 7) - 1;
+        return ((index << 6) + square) * hidden;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.chess.nnue;
+
+import com.example.chess.ChessGame;
+import com.example.chess.engine.Evaluator;
+import com.example.chess.engine.Search;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Evaluates with a {@link Network}. The game passed to {@link #evaluate} is followed from then
+ * on through its {@link com.example.chess.MoveObserver}, so the hidden layer is updated move by
+ * move rather than recomputed at every node; evaluating a different game switches over to it.
+ *
+ * <p>Not thread-safe: each search thread gets its own instance through {@link #copy}, all
+ * sharing one set of weights. Meant for the server; the app keeps the lighter
+ * {@link com.example.chess.engine.ClassicEvaluator}.
+ */
+public final class NnueEvaluator implements Evaluator {
+    // Stay clear of the scores the search reserves for mates
+    private static final int MAX_SCORE = Search.MATE - Search.MAX_PLY - 1;
+
+    private final Network network;
+    private final Kernels kernels;
+    private final Accumulator accumulator;
+    private ChessGame followed;
+
+    public NnueEvaluator(Network network) {
+        this(network, Kernels.best());
+    }
+
+    private NnueEvaluator(Network network, Kernels kernels) {
+        this.network = network;
+        this.kernels = kernels;
+        this.accumulator = new Accumulator(network, kernels);
+    }
+
+    public static NnueEvaluator load(Path file) throws IOException {
+        return new NnueEvaluator(Network.load(file));
+    }
+
+    /** Whether inference runs on the JDK's Vector API rather than scalar loops. */
+    public boolean isVectorized() {
+        return kernels.isVectorized();
+    }
+
+    public Network getNetwork() {
+        return network;
+    }
+
+    @Override
+    public int evaluate(ChessGame game) {
+        if (game != followed) follow(game);
+        int score = accumulator.evaluate(game);
+        return Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+    }
+
+    @Override
+    public Evaluator copy() {
+        return new NnueEvaluator(network, kernels);
+    }
+
+    private void follow(ChessGame game) {
+        if (followed != null) followed.setMoveObserver(null);
+        followed = game;
+        game.setMoveObserver(accumulator);
+        accumulator.reset();
+    }
+}
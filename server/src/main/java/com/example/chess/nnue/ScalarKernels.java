@@ -0,0 +1,34 @@
+package com.example.chess.nnue;
+
+/** {@link Kernels} as plain loops, for JVMs started without the Vector API module. */
+final class ScalarKernels extends Kernels {
+    @Override
+    boolean isVectorized() {
+        return false;
+    }
+
+    @Override
+    void addSub(short[] dst, int d, short[] src, int s, short[] weights, int add, int sub, int n) {
+        for (int i = 0; i < n; i++) dst[d + i] = (short) (src[s + i] + weights[add + i] - weights[sub + i]);
+    }
+
+    @Override
+    void add(short[] acc, int a, short[] weights, int add, int n) {
+        for (int i = 0; i < n; i++) acc[a + i] += weights[add + i];
+    }
+
+    @Override
+    void sub(short[] acc, int a, short[] weights, int sub, int n) {
+        for (int i = 0; i < n; i++) acc[a + i] -= weights[sub + i];
+    }
+
+    @Override
+    int forward(short[] us, int u, short[] them, int t, short[] weights, int n, int max) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += Math.min(Math.max(us[u + i], 0), max) * weights[i];
+            sum += Math.min(Math.max(them[t + i], 0), max) * weights[n + i];
+        }
+        return sum;
+    }
+}
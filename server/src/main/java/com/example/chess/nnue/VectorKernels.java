@@ -0,0 +1,83 @@
+package com.example.chess.nnue;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link Kernels} on the JDK's incubating Vector API, using the widest vectors the CPU has.
+ * Only created through {@link Kernels#best} after checking that the module is present.
+ */
+final class VectorKernels extends Kernels {
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    // Same width as SHORTS: each short vector widens into two of these
+    private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, SHORTS.vectorShape());
+
+    @Override
+    boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    void addSub(short[] dst, int d, short[] src, int s, short[] weights, int add, int sub, int n) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(n); i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, src, s + i)
+                    .add(ShortVector.fromArray(SHORTS, weights, add + i))
+                    .sub(ShortVector.fromArray(SHORTS, weights, sub + i))
+                    .intoArray(dst, d + i);
+        }
+        for (; i < n; i++) dst[d + i] = (short) (src[s + i] + weights[add + i] - weights[sub + i]);
+    }
+
+    @Override
+    void add(short[] acc, int a, short[] weights, int add, int n) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(n); i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, acc, a + i)
+                    .add(ShortVector.fromArray(SHORTS, weights, add + i))
+                    .intoArray(acc, a + i);
+        }
+        for (; i < n; i++) acc[a + i] += weights[add + i];
+    }
+
+    @Override
+    void sub(short[] acc, int a, short[] weights, int sub, int n) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(n); i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, acc, a + i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, sub + i))
+                    .intoArray(acc, a + i);
+        }
+        for (; i < n; i++) acc[a + i] -= weights[sub + i];
+    }
+
+    @Override
+    int forward(short[] us, int u, short[] them, int t, short[] weights, int n, int max) {
+        IntVector sum = IntVector.zero(INTS);
+        short zero = 0, top = (short) max;
+        int i = 0;
+        for (int bound = SHORTS.loopBound(n); i < bound; i += SHORTS.length()) {
+            sum = sum.add(dot(ShortVector.fromArray(SHORTS, us, u + i).max(zero).min(top),
+                    ShortVector.fromArray(SHORTS, weights, i)));
+            sum = sum.add(dot(ShortVector.fromArray(SHORTS, them, t + i).max(zero).min(top),
+                    ShortVector.fromArray(SHORTS, weights, n + i)));
+        }
+        int total = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            total += Math.min(Math.max(us[u + i], 0), max) * weights[i];
+            total += Math.min(Math.max(them[t + i], 0), max) * weights[n + i];
+        }
+        return total;
+    }
+
+    /** Lane-wise products of two short vectors, widened to int and folded into one int vector. */
+    private static IntVector dot(ShortVector a, ShortVector b) {
+        IntVector low = (IntVector) a.convertShape(VectorOperators.S2I, INTS, 0)
+                .mul(b.convertShape(VectorOperators.S2I, INTS, 0));
+        IntVector high = (IntVector) a.convertShape(VectorOperators.S2I, INTS, 1)
+                .mul(b.convertShape(VectorOperators.S2I, INTS, 1));
+        return low.add(high);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.chess.perft;
+
+import com.example.chess.ChessGame;
+import com.example.chess.engine.Perft;
+import com.example.chess.metrics.MetricsRegistry;
+import com.example.chess.metrics.RecordingMetrics;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command-line perft for checking move generation at large depths. With --divide the count of
+ * every root move is printed, ready to be compared against a reference engine. With --suite a set
+ * of well-known positions is checked against their published counts and the exit status tells
+ * whether all of them matched.
+ *
+ * <pre>
+ * PerftRunner [--fen FEN] [--depth 6] [--divide] [--threads N] [--hash MB] [--split-depth 3] [--metrics]
+ * PerftRunner --suite [--depth-limit 5] [--threads N] [--hash MB] [--metrics]
+ * </pre>
+ */
+public class PerftRunner {
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // FEN, depth, expected leaf count
+    private static final Object[][] SUITE = {
+            {START_FEN, 5, 4_865_609L},
+            {START_FEN, 6, 119_060_324L},
+            {"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 4, 4_085_603L},
+            {"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 5, 193_690_690L},
+            {"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 6, 11_030_083L},
+            {"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 5, 15_833_292L},
+            {"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 4, 2_103_487L},
+            {"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 4, 3_894_594L},
+    };
+
+    public static void main(String[] args) {
+        String fen = START_FEN;
+        int depth = 6;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hashMb = 0;
+        int splitDepth = 3;
+        int depthLimit = Integer.MAX_VALUE;
+        boolean divide = false, suite = false;
+        RecordingMetrics metrics = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : "";
+            switch (args[i]) {
+                case "--fen": fen = value; i++; break;
+                case "--depth": depth = Integer.parseInt(value); i++; break;
+                case "--threads": threads = Integer.parseInt(value); i++; break;
+                case "--hash": hashMb = Integer.parseInt(value); i++; break;
+                case "--split-depth": splitDepth = Integer.parseInt(value); i++; break;
+                case "--depth-limit": depthLimit = Integer.parseInt(value); i++; break;
+                case "--divide": divide = true; break;
+                case "--suite": suite = true; break;
+                case "--metrics": metrics = new RecordingMetrics(); break;
+                default: throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        MetricsRegistry.install(metrics);
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        int failures = 0;
+        try {
+            if (suite) {
+                failures = runSuite(pool, splitDepth, hashMb, depthLimit);
+            } else {
+                run(new Perft(pool, splitDepth, hashMb), ChessGame.fromFen(fen), depth, divide);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        if (metrics != null) System.out.print(metrics.report());
+        if (failures > 0) System.exit(1);
+    }
+
+    private static void run(Perft perft, ChessGame game, int depth, boolean divide) {
+        long start = System.nanoTime();
+        long nodes;
+        if (divide) {
+            List<Perft.Result> results = perft.divide(game, depth);
+            nodes = 0;
+            for (Perft.Result result : results) {
+                System.out.println(result.move + ": " + result.nodes);
+                nodes += result.nodes;
+            }
+            System.out.println();
+            System.out.println("Moves: " + results.size());
+        } else {
+            nodes = perft.count(game, depth);
+        }
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.printf("Nodes: %d  Time: %d ms  NPS: %d%n", nodes, elapsedMs, nodes * 1000 / elapsedMs);
+    }
+
+    private static int runSuite(ForkJoinPool pool, int splitDepth, int hashMb, int depthLimit) {
+        int failures = 0;
+        long totalNodes = 0;
+        long start = System.nanoTime();
+        for (Object[] entry : SUITE) {
+            String fen = (String) entry[0];
+            int depth = (Integer) entry[1];
+            long expected = (Long) entry[2];
+            if (depth > depthLimit) continue;
+
+            // A fresh cache per position keeps one bad entry from hiding behind another
+            long positionStart = System.nanoTime();
+            long nodes = new Perft(pool, splitDepth, hashMb).count(ChessGame.fromFen(fen), depth);
+            long elapsedMs = Math.max(1, (System.nanoTime() - positionStart) / 1_000_000);
+            boolean ok = nodes == expected;
+            if (!ok) failures++;
+            totalNodes += nodes;
+            System.out.printf("%s depth %d: %d%s  (%d ms)  %s%n", ok ? "OK  " : "FAIL", depth, nodes,
+                    ok ? "" : " expected " + expected, elapsedMs, fen);
+        }
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.printf("%d failures  Nodes: %d  Time: %d ms  NPS: %d%n",
+                failures, totalNodes, elapsedMs, totalNodes * 1000 / elapsedMs);
+        return failures;
+    }
+}
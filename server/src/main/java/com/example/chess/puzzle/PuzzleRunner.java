@@ -0,0 +1,160 @@
+package com.example.chess.puzzle;
+
+import com.example.chess.ChessGame;
+import com.example.chess.Notation;
+import com.example.chess.engine.MateSolver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the {@link MateSolver} over a file of puzzles, many at a time, and prints the mate found
+ * for each. Lines hold a FEN or an EPD record; an EPD "dm" (direct mate) operation gives the
+ * expected length, and the exit status tells whether every such puzzle was solved at exactly
+ * that length. Blank lines and lines starting with '#' are skipped.
+ *
+ * <pre>
+ * PuzzleRunner --file puzzles.epd [--max-moves 5] [--nodes 10000000] [--hash 64] [--threads N]
+ * </pre>
+ */
+public class PuzzleRunner {
+    private static final class Puzzle {
+        final int number;
+        final String id;
+        final ChessGame game;
+        final int expectedMoves; // 0 if not given
+
+        Puzzle(int number, String id, ChessGame game, int expectedMoves) {
+            this.number = number;
+            this.id = id;
+            this.game = game;
+            this.expectedMoves = expectedMoves;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String file = null;
+        int maxMoves = 5;
+        long nodeLimit = 10_000_000;
+        int hashMb = 64;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : "";
+            switch (args[i]) {
+                case "--file": file = value; i++; break;
+                case "--max-moves": maxMoves = Integer.parseInt(value); i++; break;
+                case "--nodes": nodeLimit = Long.parseLong(value); i++; break;
+                case "--hash": hashMb = Integer.parseInt(value); i++; break;
+                case "--threads": threads = Integer.parseInt(value); i++; break;
+                default: throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        if (file == null) throw new IllegalArgumentException("Missing --file");
+
+        List<Puzzle> puzzles = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8)) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) continue;
+            puzzles.add(parse(lineNumber, line.trim()));
+        }
+
+        // One solver and table per worker thread, reused from puzzle to puzzle
+        int limitMoves = maxMoves;
+        long limitNodes = nodeLimit;
+        int tableMb = hashMb;
+        ThreadLocal<MateSolver> solvers = ThreadLocal.withInitial(() -> {
+            MateSolver solver = new MateSolver(tableMb);
+            solver.setNodeLimit(limitNodes);
+            return solver;
+        });
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<Future<String>> reports = new ArrayList<>();
+        int[] tally = new int[3]; // solved, wrong length, unsolved; guarded by tally
+        long start = System.nanoTime();
+        for (Puzzle puzzle : puzzles) {
+            reports.add(pool.submit(() -> solve(solvers.get(), puzzle, Math.max(limitMoves, puzzle.expectedMoves), tally)));
+        }
+        try {
+            for (Future<String> report : reports) System.out.println(report.get());
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.printf("Puzzles: %d  Mates: %d  Wrong length: %d  Unsolved: %d  Time: %d ms%n",
+                puzzles.size(), tally[0], tally[1], tally[2], elapsedMs);
+        if (tally[1] > 0 || tally[2] > 0) System.exit(1);
+    }
+
+    private static Puzzle parse(int lineNumber, String line) {
+        String[] fields = line.split("\\s+", 5);
+        if (fields.length < 4) throw new IllegalArgumentException("Line " + lineNumber + ": not a FEN or EPD record");
+        String id = "#" + lineNumber;
+        int expected = 0;
+        String fen;
+        if (fields.length == 5 && fields[4].matches("\\d+ \\d+")) {
+            fen = line;
+        } else {
+            fen = fields[0] + " " + fields[1] + " " + fields[2] + " " + fields[3];
+            // EPD operations: "opcode operand...;" pairs
+            if (fields.length == 5) {
+                for (String operation : fields[4].split(";")) {
+                    String[] parts = operation.trim().split("\\s+", 2);
+                    if (parts.length < 2) continue;
+                    if (parts[0].equals("dm")) expected = Integer.parseInt(parts[1].trim());
+                    if (parts[0].equals("id")) id = parts[1].trim().replace("\"", "");
+                }
+            }
+        }
+        try {
+            return new Puzzle(lineNumber, id, ChessGame.fromFen(fen), expected);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage());
+        }
+    }
+
+    private static String solve(MateSolver solver, Puzzle puzzle, int maxMoves, int[] tally) {
+        long start = System.nanoTime();
+        MateSolver.Result result = solver.solve(puzzle.game, Math.min(maxMoves, MateSolver.MAX_MOVES));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        String verdict;
+        int outcome;
+        if (result.status == MateSolver.Result.Status.MATE) {
+            boolean right = puzzle.expectedMoves == 0 || puzzle.expectedMoves == result.getMoves();
+            outcome = right ? 0 : 1;
+            verdict = "mate in " + result.getMoves() + (right ? "" : " (expected " + puzzle.expectedMoves + ")")
+                    + ": " + san(puzzle.game, result.line);
+        } else {
+            outcome = puzzle.expectedMoves == 0 ? -1 : 2;
+            verdict = result.status == MateSolver.Result.Status.NO_MATE ? "no mate by checks" : "gave up";
+        }
+        synchronized (tally) {
+            if (outcome >= 0) tally[outcome]++;
+        }
+        return String.format("%-12s %s  (%d nodes, %d ms)", puzzle.id, verdict, result.nodes, elapsedMs);
+    }
+
+    private static String san(ChessGame position, int[] line) {
+        ChessGame game = position.copy();
+        StringBuilder text = new StringBuilder();
+        for (int move : line) {
+            if (text.length() > 0) text.append(' ');
+            text.append(Notation.toSan(game, move));
+            game.doMove(move);
+        }
+        return text.toString();
+    }
+}
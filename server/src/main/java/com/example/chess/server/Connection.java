@@ -0,0 +1,86 @@
+package com.example.chess.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A client connection. Reads happen on the selector thread; any thread may {@link #send} a line,
+ * which is queued and written out by the selector thread. A client that falls more than
+ * {@link #MAX_QUEUED} lines behind is not reading and is disconnected.
+ */
+final class Connection {
+    static final int MAX_LINE = 256;
+    static final int MAX_QUEUED = 1024;
+
+    final SocketChannel channel;
+    final SelectionKey key;
+    final ByteBuffer readBuffer = ByteBuffer.allocate(MAX_LINE);
+    final Set<Long> games = ConcurrentHashMap.newKeySet();
+
+    private final GameServer server;
+    private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    private volatile boolean closed;
+
+    Connection(GameServer server, SocketChannel channel, SelectionKey key) {
+        this.server = server;
+        this.channel = channel;
+        this.key = key;
+    }
+
+    void send(String line) {
+        if (closed) return;
+        if (queued.incrementAndGet() > MAX_QUEUED) {
+            // Straight to the selector thread, which may not be waiting to write to this client
+            if (overflowed.compareAndSet(false, true)) server.requestWrite(this);
+            return;
+        }
+        outbound.add(ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.US_ASCII)));
+        if (writeScheduled.compareAndSet(false, true)) {
+            server.requestWrite(this);
+        }
+    }
+
+    /** Marks the connection closed, after which nothing more is queued. Returns false if it already was. */
+    boolean close() {
+        if (closed) return false;
+        closed = true;
+        outbound.clear();
+        return true;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Writes as much queued output as the socket accepts. Selector thread only.
+     *
+     * @return true if everything queued so far has been written
+     * @throws IOException also when the client has fallen too far behind
+     */
+    boolean flush() throws IOException {
+        if (overflowed.get()) throw new IOException("Client is not reading");
+        ByteBuffer buffer;
+        while ((buffer = outbound.peek()) != null) {
+            channel.write(buffer);
+            if (buffer.hasRemaining()) return false;
+            outbound.poll();
+            queued.decrementAndGet();
+        }
+        writeScheduled.set(false);
+        // A sender may have queued a line after the loop ended but before the flag was cleared
+        return outbound.isEmpty() || !writeScheduled.compareAndSet(false, true);
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.chess.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts many concurrent games over a line protocol on a single NIO selector thread. Moves are
+ * validated and applied by each game's {@link GameSession} on a shared worker pool.
+ *
+ * <pre>
+ * client                      server
+ * NEW                         GAME id, then STATE id ply status fen
+ * JOIN id                     STATE id ply status fen
+ * MOVE id e2e4                STATE ... to every subscriber, or ERR id reason move
+ * LEAVE id                    (nothing)
+ * </pre>
+ *
+ * status is one of play, check, checkmate, stalemate or draw; once it is one of the last three,
+ * further moves are refused with ERR id over move.
+ */
+public class GameServer implements Runnable {
+    public static final int DEFAULT_PORT = 7878;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ExecutorService workers;
+    private final ConcurrentHashMap<Long, GameSession> games = new ConcurrentHashMap<>();
+    private final AtomicLong nextGameId = new AtomicLong(1);
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    public GameServer(int port, int workerThreads) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("127.0.0.1", port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        workers = Executors.newFixedThreadPool(workerThreads, r -> {
+            Thread t = new Thread(r, "game-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getGameCount() {
+        return games.size();
+    }
+
+    void requestWrite(Connection connection) {
+        pendingWrites.add(connection);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+
+                Connection pending;
+                while ((pending = pendingWrites.poll()) != null) {
+                    flush(pending);
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isReadable()) read(connection);
+                        if (key.isValid() && key.isWritable()) flush(connection);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Game server stopped: " + e);
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        serverChannel.close();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(this, channel, key));
+    }
+
+    private void read(Connection connection) {
+        ByteBuffer buffer = connection.readBuffer;
+        try {
+            if (connection.channel.read(buffer) < 0) {
+                disconnect(connection);
+                return;
+            }
+        } catch (IOException e) {
+            disconnect(connection);
+            return;
+        }
+
+        buffer.flip();
+        int lineStart = 0;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                int end = (i > lineStart && buffer.get(i - 1) == '\r') ? i - 1 : i;
+                handleLine(connection, new String(buffer.array(), lineStart, end - lineStart, StandardCharsets.US_ASCII));
+                lineStart = i + 1;
+            }
+        }
+        buffer.position(lineStart);
+        buffer.compact();
+
+        if (!buffer.hasRemaining()) {
+            // Longer than any valid command
+            disconnect(connection);
+        }
+    }
+
+    private void flush(Connection connection) {
+        SelectionKey key = connection.key;
+        if (!key.isValid()) return;
+        try {
+            boolean done = connection.flush();
+            key.interestOps(done ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } catch (IOException e) {
+            disconnect(connection);
+        }
+    }
+
+    private void handleLine(Connection connection, String line) {
+        String[] parts = line.trim().split(" ");
+        switch (parts[0]) {
+            case "NEW": {
+                long id = nextGameId.getAndIncrement();
+                GameSession session = new GameSession(id, workers);
+                games.put(id, session);
+                session.submit(() -> {
+                    connection.send("GAME " + id);
+                    // Gone already: nobody else knows the game yet, so it goes too
+                    if (!session.subscribe(connection)) leave(session, connection);
+                });
+                break;
+            }
+            case "JOIN":
+            case "MOVE":
+            case "LEAVE": {
+                GameSession session = parts.length > 1 ? findGame(parts[1]) : null;
+                if (session == null) {
+                    connection.send("ERR " + (parts.length > 1 ? parts[1] : "-") + " unknown-game");
+                } else if (parts[0].equals("JOIN")) {
+                    session.submit(() -> {
+                        if (!session.subscribe(connection)) connection.send("ERR " + session.id + " unknown-game");
+                    });
+                } else if (parts[0].equals("MOVE")) {
+                    String move = parts.length > 2 ? parts[2] : "";
+                    session.submit(() -> session.applyMove(connection, move));
+                } else {
+                    session.submit(() -> leave(session, connection));
+                }
+                break;
+            }
+            default:
+                connection.send("ERR - unknown-command");
+        }
+    }
+
+    private GameSession findGame(String id) {
+        try {
+            return games.get(Long.parseLong(id));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void leave(GameSession session, Connection connection) {
+        if (session.unsubscribe(connection)) {
+            games.remove(session.id, session);
+        }
+    }
+
+    /** Closes the connection and leaves its games. Subscriptions made after this fail. */
+    private void disconnect(Connection connection) {
+        if (!connection.close()) return;
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException ignored) {
+        }
+        for (Long id : connection.games) {
+            GameSession session = games.get(id);
+            if (session != null) session.submit(() -> leave(session, connection));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        GameServer server = new GameServer(port, threads);
+        System.out.println("Game server listening on 127.0.0.1:" + server.getPort() + " with " + threads + " workers");
+        server.run();
+    }
+}
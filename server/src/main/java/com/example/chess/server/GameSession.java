@@ -0,0 +1,125 @@
+package com.example.chess.server;
+
+import com.example.chess.ChessGame;
+import com.example.chess.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One hosted game. Every access to the game goes through {@link #submit}, which runs tasks one
+ * at a time on the shared worker pool, so games never need a lock and never wait on each other.
+ */
+final class GameSession {
+    // Tasks run per turn on a worker before it is handed back to other games
+    private static final int DRAIN_BATCH = 32;
+
+    final long id;
+    private final Executor workers;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // Only touched from tasks, which never run concurrently
+    private final ChessGame game = new ChessGame();
+    private final List<Connection> subscribers = new ArrayList<>(2);
+    private int ply;
+    private String status = "play";
+    private boolean closed;
+
+    GameSession(long id, Executor workers) {
+        this.id = id;
+        this.workers = workers;
+    }
+
+    void submit(Runnable task) {
+        tasks.add(task);
+        if (scheduled.compareAndSet(false, true)) {
+            workers.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        Runnable task;
+        for (int i = 0; i < DRAIN_BATCH && (task = tasks.poll()) != null; i++) {
+            task.run();
+        }
+        scheduled.set(false);
+        if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+            workers.execute(this::drain);
+        }
+    }
+
+    /**
+     * Adds a subscriber and sends it the current state. Returns false if the game or the
+     * connection has been closed.
+     */
+    boolean subscribe(Connection connection) {
+        if (closed) return false;
+        if (!subscribers.contains(connection)) {
+            // Listed on the connection first: a disconnect either finds this game there or is seen here
+            connection.games.add(id);
+            if (connection.isClosed()) {
+                connection.games.remove(id);
+                return false;
+            }
+            subscribers.add(connection);
+        }
+        connection.send(stateLine());
+        return true;
+    }
+
+    /** Removes a subscriber. Returns true if that left the game without subscribers, closing it. */
+    boolean unsubscribe(Connection connection) {
+        subscribers.remove(connection);
+        connection.games.remove(id);
+        if (subscribers.isEmpty()) closed = true;
+        return closed;
+    }
+
+    /** Validates and applies a move, then pushes the new state to every subscriber. */
+    void applyMove(Connection from, String moveText) {
+        Move move;
+        try {
+            move = Move.parse(moveText);
+        } catch (IllegalArgumentException e) {
+            from.send("ERR " + id + " bad-move " + moveText);
+            return;
+        }
+
+        if (isOver()) {
+            from.send("ERR " + id + " over " + moveText);
+            return;
+        }
+        if (closed || !game.makeMove(move)) {
+            from.send("ERR " + id + " illegal " + moveText);
+            return;
+        }
+
+        ply++;
+        status = status();
+        String state = stateLine();
+        for (int i = 0; i < subscribers.size(); i++) {
+            subscribers.get(i).send(state);
+        }
+    }
+
+    private boolean isOver() {
+        return !status.equals("play") && !status.equals("check");
+    }
+
+    private String status() {
+        String color = game.isWhiteTurn() ? "white" : "black";
+        if (game.isCheckmate(color)) return "checkmate";
+        if (game.isStalemate(color)) return "stalemate";
+        if (game.isDraw()) return "draw";
+        return game.isKingInCheck(color) ? "check" : "play";
+    }
+
+    private String stateLine() {
+        return "STATE " + id + " " + ply + " " + status + " " + game.toFen();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.chess.server;
+
+import com.example.chess.ChessGame;
+import com.example.chess.Move;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Plays random games against a {@link GameServer} from many connections at once and reports
+ * moves per second and move round-trip latency percentiles.
+ *
+ * <p>Usage: {@code LoadGenerator [host] [port] [connections] [gamesPerConnection] [seconds]}.
+ * Without a host a server is started in-process on a free port.
+ */
+public class LoadGenerator {
+    private static final int MAX_PLIES = 200;
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : null;
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int gamesPerConnection = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+
+        GameServer server = null;
+        if (host == null || host.equals("-")) {
+            server = new GameServer(0, Runtime.getRuntime().availableProcessors());
+            port = server.getPort();
+            host = "127.0.0.1";
+            Thread serverThread = new Thread(server, "game-server");
+            serverThread.setDaemon(true);
+            serverThread.start();
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        Client[] clients = new Client[connections];
+        Thread[] threads = new Thread[connections];
+        for (int i = 0; i < connections; i++) {
+            clients[i] = new Client(host, port, gamesPerConnection, deadline, i);
+            threads[i] = new Thread(clients[i], "load-client-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // Clients finish the move in flight at the deadline, so the run takes a little longer
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long moves = 0;
+        for (Client client : clients) moves += client.count;
+        long[] latencies = new long[(int) moves];
+        int offset = 0;
+        for (Client client : clients) {
+            System.arraycopy(client.latencies, 0, latencies, offset, client.count);
+            offset += client.count;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("%d connections, %d games, %d moves in %.2f s: %.0f moves/s%n",
+                connections, connections * gamesPerConnection, moves, elapsed, moves / elapsed);
+        if (moves > 0) {
+            System.out.printf("latency p50 %.1f us, p99 %.1f us, max %.1f us%n",
+                    percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.99) / 1e3, latencies[latencies.length - 1] / 1e3);
+        }
+        if (server != null) server.close();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+
+    /** One connection cycling round-robin through its games with one move in flight at a time. */
+    private static final class Client implements Runnable {
+        private final String host;
+        private final int port;
+        private final long deadline;
+        private final Random random;
+        private final long[] ids;
+        private final ChessGame[] mirrors;
+        private final int[] plies;
+        long[] latencies = new long[1 << 14];
+        int count;
+
+        Client(String host, int port, int games, long deadline, long seed) {
+            this.host = host;
+            this.port = port;
+            this.deadline = deadline;
+            this.random = new Random(seed);
+            this.ids = new long[games];
+            this.mirrors = new ChessGame[games];
+            this.plies = new int[games];
+        }
+
+        @Override
+        public void run() {
+            try (Socket socket = new Socket(host, port)) {
+                socket.setTcpNoDelay(true);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                OutputStream out = socket.getOutputStream();
+
+                for (int g = 0; g < ids.length; g++) {
+                    startGame(g, in, out);
+                }
+
+                int g = 0;
+                while (System.nanoTime() < deadline) {
+                    List<Move> moves = mirrors[g].getLegalMoves();
+                    if (moves.isEmpty() || mirrors[g].isDraw() || plies[g] >= MAX_PLIES) {
+                        send(out, "LEAVE " + ids[g]);
+                        startGame(g, in, out);
+                        continue;
+                    }
+
+                    Move move = moves.get(random.nextInt(moves.size()));
+                    long start = System.nanoTime();
+                    send(out, "MOVE " + ids[g] + " " + move);
+                    String reply = in.readLine();
+                    record(System.nanoTime() - start);
+                    if (reply == null || !reply.startsWith("STATE")) {
+                        throw new IOException("Unexpected reply: " + reply);
+                    }
+
+                    mirrors[g].makeMove(move);
+                    plies[g]++;
+                    g = (g + 1) % ids.length;
+                }
+            } catch (IOException e) {
+                System.err.println(Thread.currentThread().getName() + ": " + e.getMessage());
+            }
+        }
+
+        private void startGame(int g, BufferedReader in, OutputStream out) throws IOException {
+            send(out, "NEW");
+            String game = in.readLine();
+            String state = in.readLine();
+            if (game == null || !game.startsWith("GAME") || state == null) {
+                throw new IOException("Could not create game: " + game);
+            }
+            ids[g] = Long.parseLong(game.substring(5));
+            mirrors[g] = new ChessGame();
+            plies[g] = 0;
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = nanos;
+        }
+
+        private static void send(OutputStream out, String line) throws IOException {
+            out.write((line + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+    }
+}
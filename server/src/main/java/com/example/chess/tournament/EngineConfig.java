@@ -0,0 +1,101 @@
+package com.example.chess.tournament;
+
+import com.example.chess.engine.ClassicEvaluator;
+import com.example.chess.engine.Evaluator;
+import com.example.chess.engine.Search;
+import com.example.chess.engine.SearchLimits;
+import com.example.chess.engine.TimeManager;
+import com.example.chess.nnue.NnueEvaluator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
+/**
+ * One side of a match, parsed from a comma-separated list such as
+ * {@code name=dev,hash=16,nodes=20000} or {@code name=base,tc=10+0.1}.
+ *
+ * <p>Keys: name, hash (MB), depth, nodes, movetime (ms), tc (base seconds + increment seconds),
+ * overhead (ms kept back on the clock per move), nnue (network file; the classic evaluator if
+ * absent), weights (classic evaluator weights file).
+ */
+final class EngineConfig {
+    String name = "engine";
+    int hashMb = 16;
+    int depth = Search.MAX_PLY;
+    long nodes = Long.MAX_VALUE;
+    long moveTimeMs = -1;
+    long baseTimeMs = -1, incrementMs;
+    long moveOverheadMs = TimeManager.DEFAULT_MOVE_OVERHEAD_MS;
+    Evaluator evaluator = new ClassicEvaluator();
+
+    static EngineConfig parse(String spec) {
+        EngineConfig config = new EngineConfig();
+        for (String option : spec.split(",")) {
+            String[] kv = option.split("=", 2);
+            if (kv.length != 2) throw new IllegalArgumentException("Bad engine option: " + option);
+            String value = kv[1].trim();
+            switch (kv[0].trim()) {
+                case "name": config.name = value; break;
+                case "hash": config.hashMb = Integer.parseInt(value); break;
+                case "depth": config.depth = Integer.parseInt(value); break;
+                case "nodes": config.nodes = Long.parseLong(value); break;
+                case "movetime": config.moveTimeMs = Long.parseLong(value); break;
+                case "overhead": config.moveOverheadMs = Long.parseLong(value); break;
+                case "nnue": config.evaluator = loadNetwork(value); break;
+                case "weights": config.evaluator = loadWeights(value); break;
+                case "tc": {
+                    String[] parts = value.split("\\+");
+                    config.baseTimeMs = (long) (Double.parseDouble(parts[0]) * 1000);
+                    config.incrementMs = parts.length > 1 ? (long) (Double.parseDouble(parts[1]) * 1000) : 0;
+                    break;
+                }
+                default: throw new IllegalArgumentException("Unknown engine option: " + kv[0]);
+            }
+        }
+        if (config.nodes == Long.MAX_VALUE && config.moveTimeMs < 0 && config.baseTimeMs < 0 && config.depth == Search.MAX_PLY) {
+            config.nodes = 20_000; // Fast, reproducible default
+        }
+        return config;
+    }
+
+    private static Evaluator loadNetwork(String file) {
+        try {
+            return NnueEvaluator.load(Paths.get(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Evaluator loadWeights(String file) {
+        try {
+            return new ClassicEvaluator(ClassicEvaluator.loadWeights(new File(file)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    boolean hasClock() {
+        return baseTimeMs >= 0;
+    }
+
+    Search newSearch() {
+        Search search = new Search(evaluator, hashMb, 1);
+        search.setMoveOverhead(moveOverheadMs);
+        return search;
+    }
+
+    SearchLimits limits(long whiteClockMs, long blackClockMs) {
+        SearchLimits limits = new SearchLimits();
+        limits.depth = depth;
+        limits.nodes = nodes;
+        limits.moveTimeMs = moveTimeMs;
+        if (hasClock()) {
+            limits.whiteTimeMs = whiteClockMs;
+            limits.blackTimeMs = blackClockMs;
+            limits.whiteIncrementMs = limits.blackIncrementMs = incrementMs;
+        }
+        return limits;
+    }
+}
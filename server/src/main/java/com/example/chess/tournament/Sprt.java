@@ -0,0 +1,55 @@
+package com.example.chess.tournament;
+
+/**
+ * Match statistics: Elo difference with a 95% error bar, and the log-likelihood ratio of the
+ * generalized sequential probability ratio test between two Elo hypotheses.
+ */
+final class Sprt {
+    private Sprt() {
+    }
+
+    static double elo(double score) {
+        if (score <= 0) return Double.NEGATIVE_INFINITY;
+        if (score >= 1) return Double.POSITIVE_INFINITY;
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /** Half the width of the 95% confidence interval of the Elo difference. */
+    static double eloError(int wins, int draws, int losses) {
+        int n = wins + draws + losses;
+        if (n == 0) return Double.POSITIVE_INFINITY;
+        double score = (wins + draws / 2.0) / n;
+        double stdErr = Math.sqrt(variance(wins, draws, losses, score) / n);
+        double low = Math.max(1e-6, score - 1.96 * stdErr);
+        double high = Math.min(1 - 1e-6, score + 1.96 * stdErr);
+        return (elo(high) - elo(low)) / 2;
+    }
+
+    /** Log-likelihood ratio of H1 (elo1) against H0 (elo0), using the normal approximation. */
+    static double llr(int wins, int draws, int losses, double elo0, double elo1) {
+        int n = wins + draws + losses;
+        if (n == 0) return 0;
+        double score = (wins + draws / 2.0) / n;
+        double variance = variance(wins, draws, losses, score);
+        if (variance == 0) return 0;
+        double s0 = expectedScore(elo0), s1 = expectedScore(elo1);
+        return n * (s1 - s0) * (2 * score - s0 - s1) / (2 * variance);
+    }
+
+    static double lowerBound(double alpha, double beta) {
+        return Math.log(beta / (1 - alpha));
+    }
+
+    static double upperBound(double alpha, double beta) {
+        return Math.log((1 - beta) / alpha);
+    }
+
+    private static double variance(int wins, int draws, int losses, double score) {
+        int n = wins + draws + losses;
+        return (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2) + losses * Math.pow(score, 2)) / n;
+    }
+}
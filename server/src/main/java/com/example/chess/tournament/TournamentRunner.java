@@ -0,0 +1,299 @@
+package com.example.chess.tournament;
+
+import com.example.chess.ChessGame;
+import com.example.chess.Move;
+import com.example.chess.Notation;
+import com.example.chess.engine.Search;
+import com.example.chess.metrics.MetricsRegistry;
+import com.example.chess.metrics.RecordingMetrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Plays engine-vs-engine matches between two {@link EngineConfig}s in-process, many games at a
+ * time, and reports Elo with error bars and an SPRT verdict. Each opening is played twice with
+ * colors reversed. Finished games are appended to a PGN file as they complete.
+ *
+ * <pre>
+ * TournamentRunner --engine name=dev,nodes=20000 --engine name=base,nodes=20000
+ *                  [--games 1000] [--concurrency N] [--openings file] [--pgn out.pgn]
+ *                  [--sprt elo0,elo1,alpha,beta] [--max-plies 400] [--metrics]
+ * </pre>
+ *
+ * Opening files hold one FEN or one list of coordinate moves from the start position per line.
+ */
+public class TournamentRunner {
+    private static final String[] DEFAULT_OPENINGS = {
+            "e2e4 e7e5 g1f3 b8c6 f1b5",
+            "e2e4 c7c5 g1f3 d7d6 d2d4 c5d4 f3d4 g8f6 b1c3",
+            "e2e4 e7e6 d2d4 d7d5 b1c3",
+            "e2e4 c7c6 d2d4 d7d5 e4e5",
+            "d2d4 d7d5 c2c4 e7e6 b1c3 g8f6",
+            "d2d4 g8f6 c2c4 g7g6 b1c3 f8g7 e2e4",
+            "c2c4 e7e5 b1c3 g8f6 g2g3",
+            "g1f3 d7d5 g2g3 g8f6 f1g2",
+    };
+
+    private final EngineConfig engineA, engineB;
+    private final List<String> openings;
+    private final int maxPlies;
+    private final double elo0, elo1, alpha, beta;
+    private final Writer pgn;
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    // Results from engine A's point of view, guarded by this
+    private int wins, draws, losses;
+
+    private final ThreadLocal<Search[]> searches;
+
+    TournamentRunner(EngineConfig engineA, EngineConfig engineB, List<String> openings, int maxPlies,
+                     double[] sprt, Writer pgn) {
+        this.engineA = engineA;
+        this.engineB = engineB;
+        this.openings = openings;
+        this.maxPlies = maxPlies;
+        this.elo0 = sprt[0];
+        this.elo1 = sprt[1];
+        this.alpha = sprt[2];
+        this.beta = sprt[3];
+        this.pgn = pgn;
+        // One pair of engines per worker thread, reused from game to game
+        this.searches = ThreadLocal.withInitial(() -> new Search[]{engineA.newSearch(), engineB.newSearch()});
+    }
+
+    void run(int games, int concurrency) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < games; i++) {
+            int gameIndex = i;
+            pool.execute(() -> {
+                if (finished.get()) return;
+                try {
+                    playAndRecord(gameIndex);
+                } catch (RuntimeException | IOException e) {
+                    System.err.println("Game " + (gameIndex + 1) + " failed: " + e);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        printStatus();
+    }
+
+    private void playAndRecord(int gameIndex) throws IOException {
+        String opening = openings.get((gameIndex / 2) % openings.size());
+        boolean aIsWhite = gameIndex % 2 == 0;
+        Search[] pair = searches.get();
+        pair[0].clear();
+        pair[1].clear();
+
+        Game game = aIsWhite
+                ? play(opening, engineA, pair[0], engineB, pair[1])
+                : play(opening, engineB, pair[1], engineA, pair[0]);
+
+        synchronized (pgn) {
+            pgn.write(game.toPgn(gameIndex + 1, aIsWhite ? engineA.name : engineB.name, aIsWhite ? engineB.name : engineA.name));
+            pgn.flush();
+        }
+
+        double scoreA = game.result.equals("1/2-1/2") ? 0.5 : (game.result.equals("1-0") == aIsWhite ? 1 : 0);
+        synchronized (this) {
+            if (scoreA == 1) wins++;
+            else if (scoreA == 0) losses++;
+            else draws++;
+
+            double llr = Sprt.llr(wins, draws, losses, elo0, elo1);
+            if (llr >= Sprt.upperBound(alpha, beta) || llr <= Sprt.lowerBound(alpha, beta)) {
+                finished.set(true);
+            }
+            if ((wins + draws + losses) % 10 == 0 || finished.get()) printStatus();
+        }
+    }
+
+    private Game play(String opening, EngineConfig white, Search whiteSearch, EngineConfig black, Search blackSearch) {
+        Game record = new Game();
+        ChessGame game = setUp(opening, record);
+        long whiteClock = white.baseTimeMs, blackClock = black.baseTimeMs;
+
+        while (true) {
+            String color = game.isWhiteTurn() ? "white" : "black";
+            String winner = game.isWhiteTurn() ? "0-1" : "1-0";
+            if (game.isCheckmate(color)) {
+                record.finish(winner, "checkmate");
+                return record;
+            }
+            if (game.isStalemate(color)) {
+                record.finish("1/2-1/2", "stalemate");
+                return record;
+            }
+            if (game.isDraw()) {
+                record.finish("1/2-1/2", "draw by rule");
+                return record;
+            }
+            if (record.plies >= maxPlies) {
+                record.finish("1/2-1/2", "adjudicated after " + maxPlies + " plies");
+                return record;
+            }
+
+            EngineConfig engine = game.isWhiteTurn() ? white : black;
+            Search search = game.isWhiteTurn() ? whiteSearch : blackSearch;
+            long start = System.nanoTime();
+            int move = search.search(game, engine.limits(whiteClock, blackClock), null);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            if (engine.hasClock()) {
+                long left = (game.isWhiteTurn() ? whiteClock : blackClock) - elapsedMs;
+                if (left < 0) {
+                    record.finish(winner, color + " lost on time");
+                    return record;
+                }
+                left += engine.incrementMs;
+                if (game.isWhiteTurn()) whiteClock = left;
+                else blackClock = left;
+            }
+
+            record.add(game, move);
+            if (!game.doMove(move)) {
+                record.finish(winner, color + " played an illegal move");
+                return record;
+            }
+        }
+    }
+
+    private static ChessGame setUp(String opening, Game record) {
+        if (opening.contains("/")) {
+            ChessGame game = ChessGame.fromFen(opening);
+            record.startFen = opening;
+            return game;
+        }
+        ChessGame game = new ChessGame();
+        for (String move : opening.trim().split("\\s+")) {
+            if (move.isEmpty()) continue;
+            Move parsed = Move.parse(move);
+            if (!game.getLegalMoves().contains(parsed)) {
+                throw new IllegalArgumentException("Illegal opening move " + move + " in " + opening);
+            }
+            record.add(game, parsed.pack());
+            game.doMove(parsed.pack());
+        }
+        return game;
+    }
+
+    private synchronized void printStatus() {
+        int n = wins + draws + losses;
+        double score = n == 0 ? 0.5 : (wins + draws / 2.0) / n;
+        double llr = Sprt.llr(wins, draws, losses, elo0, elo1);
+        String verdict = llr >= Sprt.upperBound(alpha, beta) ? "H1 accepted"
+                : llr <= Sprt.lowerBound(alpha, beta) ? "H0 accepted" : "running";
+        System.out.printf("Games %d: %s vs %s  +%d -%d =%d  Elo %.1f +/- %.1f  LLR %.2f [%.2f, %.2f] SPRT(%.1f, %.1f) %s%n",
+                n, engineA.name, engineB.name, wins, losses, draws, Sprt.elo(score), Sprt.eloError(wins, draws, losses),
+                llr, Sprt.lowerBound(alpha, beta), Sprt.upperBound(alpha, beta), elo0, elo1, verdict);
+    }
+
+    /** Moves and outcome of one game, kept in SAN for the PGN record. */
+    private static final class Game {
+        final StringBuilder moves = new StringBuilder();
+        String startFen;
+        int plies;
+        String result = "*", termination = "";
+
+        void add(ChessGame game, int move) {
+            if (game.isWhiteTurn()) {
+                moves.append(game.getFullmoveNumber()).append(". ");
+            } else if (plies == 0) {
+                moves.append(game.getFullmoveNumber()).append("... ");
+            }
+            moves.append(Notation.toSan(game, move)).append(' ');
+            plies++;
+        }
+
+        void finish(String result, String termination) {
+            this.result = result;
+            this.termination = termination;
+        }
+
+        String toPgn(int round, String white, String black) {
+            StringBuilder sb = new StringBuilder(moves.length() + 256);
+            sb.append("[Event \"Engine match\"]\n");
+            sb.append("[Round \"").append(round).append("\"]\n");
+            sb.append("[White \"").append(white).append("\"]\n");
+            sb.append("[Black \"").append(black).append("\"]\n");
+            sb.append("[Result \"").append(result).append("\"]\n");
+            if (startFen != null) {
+                sb.append("[SetUp \"1\"]\n[FEN \"").append(startFen).append("\"]\n");
+            }
+            sb.append("[Termination \"").append(termination).append("\"]\n\n");
+
+            // Wrap movetext at 80 columns
+            int lineStart = sb.length();
+            for (String token : (moves + result).split(" ")) {
+                if (sb.length() - lineStart + token.length() > 79) {
+                    sb.setLength(sb.length() - 1);
+                    sb.append('\n');
+                    lineStart = sb.length();
+                }
+                sb.append(token).append(' ');
+            }
+            sb.setLength(sb.length() - 1);
+            sb.append("\n\n");
+            return sb.toString();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<EngineConfig> engines = new ArrayList<>();
+        List<String> openings = new ArrayList<>(List.of(DEFAULT_OPENINGS));
+        int games = 1000;
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        int maxPlies = 400;
+        String pgnPath = "match.pgn";
+        double[] sprt = {0, 5, 0.05, 0.05};
+        RecordingMetrics metrics = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : "";
+            switch (args[i]) {
+                case "--engine": engines.add(EngineConfig.parse(value)); i++; break;
+                case "--games": games = Integer.parseInt(value); i++; break;
+                case "--concurrency": concurrency = Integer.parseInt(value); i++; break;
+                case "--max-plies": maxPlies = Integer.parseInt(value); i++; break;
+                case "--pgn": pgnPath = value; i++; break;
+                case "--metrics": metrics = new RecordingMetrics(); break;
+                case "--openings": {
+                    openings.clear();
+                    for (String line : Files.readAllLines(Paths.get(value), StandardCharsets.UTF_8)) {
+                        if (!line.isBlank() && !line.startsWith("#")) openings.add(line.trim());
+                    }
+                    i++;
+                    break;
+                }
+                case "--sprt": {
+                    String[] parts = value.split(",");
+                    for (int j = 0; j < 4 && j < parts.length; j++) sprt[j] = Double.parseDouble(parts[j]);
+                    i++;
+                    break;
+                }
+                default: throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        while (engines.size() < 2) {
+            engines.add(EngineConfig.parse("name=" + (engines.isEmpty() ? "A" : "B")));
+        }
+
+        try (BufferedWriter pgn = Files.newBufferedWriter(Paths.get(pgnPath), StandardCharsets.UTF_8)) {
+            MetricsRegistry.install(metrics);
+            new TournamentRunner(engines.get(0), engines.get(1), openings, maxPlies, sprt, pgn).run(games, concurrency);
+        }
+        if (metrics != null) System.out.print(metrics.report());
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.chess.tuner;
+
+import com.example.chess.ChessGame;
+import com.example.chess.engine.ClassicEvaluator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Labelled positions reduced to the features of {@link ClassicEvaluator}: since its score is a
+ * weighted sum, each position is stored once as the list of weights it uses and how many times,
+ * from white's point of view, and is never replayed again. Features are kept in flat primitive
+ * arrays, position {@code i} owning entries {@code start[i]} to {@code start[i + 1]}.
+ *
+ * <p>Each line holds a FEN followed by the game result, written as {@code 1-0}, {@code 0-1} or
+ * {@code 1/2-1/2} (optionally quoted, as in an EPD {@code c9} operation) or as a white score in
+ * brackets such as {@code [0.5]}. Positions should be quiet; the tuner does not search them.
+ */
+final class PositionSet {
+    private static final int LINES_PER_TASK = 16_384;
+
+    final int size;
+    final int[] start;
+    final short[] feature;
+    final byte[] count;
+    /** Game result for white: 0 for a loss, 1 for a draw, 2 for a win. */
+    final byte[] result;
+
+    private PositionSet(int size, int[] start, short[] feature, byte[] count, byte[] result) {
+        this.size = size;
+        this.start = start;
+        this.feature = feature;
+        this.count = count;
+        this.result = result;
+    }
+
+    /**
+     * Reads and reduces the positions of {@code file} on the given executor, which should have
+     * {@code threads} threads.
+     */
+    static PositionSet load(Path file, ExecutorService executor, int threads) throws IOException, InterruptedException {
+        // Chunks are collected in order while reading, so only a few are held as text at a time
+        int maxPending = 2 * Math.max(1, threads);
+        Deque<Future<Chunk>> pending = new ArrayDeque<>();
+        List<Chunk> parsed = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            long lineNumber = 0;
+            while (true) {
+                List<String> lines = new ArrayList<>(LINES_PER_TASK);
+                String line;
+                while (lines.size() < LINES_PER_TASK && (line = reader.readLine()) != null) lines.add(line);
+                if (lines.isEmpty()) break;
+                long first = lineNumber + 1;
+                pending.add(executor.submit(() -> Chunk.parse(lines, first)));
+                lineNumber += lines.size();
+                if (pending.size() > maxPending) parsed.add(collect(pending.poll(), file));
+            }
+            while (!pending.isEmpty()) parsed.add(collect(pending.poll(), file));
+        } finally {
+            for (Future<Chunk> future : pending) future.cancel(true);
+        }
+
+        int size = 0;
+        int features = 0;
+        for (Chunk chunk : parsed) {
+            size += chunk.size;
+            features += chunk.features;
+        }
+
+        int[] start = new int[size + 1];
+        short[] feature = new short[features];
+        byte[] count = new byte[features];
+        byte[] result = new byte[size];
+        int position = 0, offset = 0;
+        for (Chunk chunk : parsed) {
+            for (int i = 0; i < chunk.size; i++) start[position + i] = offset + chunk.start[i];
+            System.arraycopy(chunk.feature, 0, feature, offset, chunk.features);
+            System.arraycopy(chunk.count, 0, count, offset, chunk.features);
+            System.arraycopy(chunk.result, 0, result, position, chunk.size);
+            position += chunk.size;
+            offset += chunk.features;
+        }
+        start[size] = offset;
+        return new PositionSet(size, start, feature, count, result);
+    }
+
+    private static Chunk collect(Future<Chunk> future, Path file) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // A ForkJoinPool may hand back a copy of the exception, with the original as its cause
+            Throwable cause = e.getCause();
+            while (cause.getCause() != null) cause = cause.getCause();
+            if (cause instanceof IllegalArgumentException) throw new IOException(cause.getMessage() + ": " + file);
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /** White's score for the position with the given weights. */
+    double evaluate(int position, double[] weights) {
+        double score = 0;
+        for (int j = start[position], end = start[position + 1]; j < end; j++) score += count[j] * weights[feature[j]];
+        return score;
+    }
+
+    /** The positions of a run of lines, reduced the same way. */
+    private static final class Chunk {
+        int size;
+        int features;
+        int[] start;
+        short[] feature;
+        byte[] count;
+        byte[] result;
+
+        static Chunk parse(List<String> lines, long firstLine) {
+            Chunk chunk = new Chunk();
+            chunk.start = new int[lines.size()];
+            chunk.result = new byte[lines.size()];
+            chunk.feature = new short[lines.size() * 16];
+            chunk.count = new byte[chunk.feature.length];
+            int[] counts = new int[ClassicEvaluator.WEIGHT_COUNT];
+            int[] touched = new int[ClassicEvaluator.WEIGHT_COUNT];
+            for (int n = 0; n < lines.size(); n++) {
+                String line = lines.get(n).trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                int result = parseResult(line);
+                ChessGame game;
+                try {
+                    if (result < 0) throw new IllegalArgumentException("no game result");
+                    game = ChessGame.fromFen(fenOf(line));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Line " + (firstLine + n) + ": " + e.getMessage());
+                }
+
+                int used = 0;
+                for (int sq = 0; sq < 64; sq++) {
+                    byte piece = game.getPieceCode(sq);
+                    if (piece == ChessGame.EMPTY) continue;
+                    boolean white = (piece & ChessGame.BLACK) == 0;
+                    int type = (piece & 7) - 1;
+                    int sign = white ? 1 : -1;
+                    int material = ClassicEvaluator.MATERIAL + type;
+                    int square = ClassicEvaluator.PIECE_SQUARE + type * 64 + (white ? sq : sq ^ 56);
+                    if (counts[material] == 0) touched[used++] = material;
+                    counts[material] += sign;
+                    if (counts[square] == 0) touched[used++] = square;
+                    counts[square] += sign;
+                }
+
+                if (chunk.features + used > chunk.feature.length) {
+                    int capacity = Math.max(chunk.feature.length * 2, chunk.features + used);
+                    chunk.feature = Arrays.copyOf(chunk.feature, capacity);
+                    chunk.count = Arrays.copyOf(chunk.count, capacity);
+                }
+                chunk.start[chunk.size] = chunk.features;
+                for (int k = 0; k < used; k++) {
+                    int index = touched[k];
+                    // Counts that cancelled out, such as a white and a black pawn, are dropped
+                    if (counts[index] != 0) {
+                        chunk.feature[chunk.features] = (short) index;
+                        chunk.count[chunk.features++] = (byte) counts[index];
+                    }
+                    counts[index] = 0;
+                }
+                chunk.result[chunk.size++] = (byte) result;
+            }
+            return chunk;
+        }
+
+        private static String fenOf(String line) {
+            String[] fields = line.split("\\s+");
+            if (fields.length < 4) throw new IllegalArgumentException("not a FEN");
+            StringBuilder fen = new StringBuilder(fields[0]);
+            for (int i = 1; i < 4; i++) fen.append(' ').append(fields[i]);
+            // Move counters, if present; anything else after the fourth field is the label
+            if (fields.length > 5 && fields[4].matches("\\d+") && fields[5].matches("\\d+")) {
+                fen.append(' ').append(fields[4]).append(' ').append(fields[5]);
+            }
+            return fen.toString();
+        }
+
+        /** White's result as 0, 1 or 2 from the end of the line, or -1 if there is none. */
+        private static int parseResult(String line) {
+            if (line.contains("1/2-1/2") || line.contains("[0.5]")) return 1;
+            if (line.contains("1-0") || line.contains("[1.0]") || line.contains("[1]")) return 2;
+            if (line.contains("0-1") || line.contains("[0.0]") || line.contains("[0]")) return 0;
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.chess.tuner;
+
+import com.example.chess.engine.ClassicEvaluator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Tunes the {@link ClassicEvaluator} weights to labelled positions (Texel's method): a score
+ * {@code s} predicts a white result of {@code 1 / (1 + 10^(-K s / 400))}, and the weights are
+ * moved to minimise the mean squared difference from the actual results. {@code K} is first
+ * fitted to the starting weights unless given. The error and its gradient are summed over
+ * blocks of positions on a fork/join pool, and the weights follow the gradient with Adam.
+ *
+ * <p>The result is written in {@link ClassicEvaluator#saveWeights} format, also every
+ * {@code --report} epochs so an interrupted run is not lost; load it with the UCI
+ * {@code WeightsFile} option or the tournament {@code weights} key.
+ *
+ * <pre>
+ * TexelTuner --file positions.epd [--out weights.txt] [--init weights.txt] [--epochs 400]
+ *            [--rate 1.0] [--k K] [--threads N] [--report 20]
+ * </pre>
+ */
+public class TexelTuner {
+    private static final int BLOCK_SIZE = 1 << 14;
+    private static final double BETA1 = 0.9, BETA2 = 0.999, EPSILON = 1e-8;
+    private static final double LN10_400 = Math.log(10) / 400;
+
+    private final PositionSet positions;
+    private final ForkJoinPool pool;
+    private final int blocks;
+
+    TexelTuner(PositionSet positions, ForkJoinPool pool) {
+        this.positions = positions;
+        this.pool = pool;
+        this.blocks = (positions.size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String file = null;
+        String out = "weights.txt";
+        String init = null;
+        int epochs = 400;
+        double rate = 1.0;
+        double k = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int report = 20;
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : "";
+            switch (args[i]) {
+                case "--file": file = value; i++; break;
+                case "--out": out = value; i++; break;
+                case "--init": init = value; i++; break;
+                case "--epochs": epochs = Integer.parseInt(value); i++; break;
+                case "--rate": rate = Double.parseDouble(value); i++; break;
+                case "--k": k = Double.parseDouble(value); i++; break;
+                case "--threads": threads = Integer.parseInt(value); i++; break;
+                case "--report": report = Math.max(1, Integer.parseInt(value)); i++; break;
+                default: throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        if (file == null) throw new IllegalArgumentException("Missing --file");
+
+        int[] start = init != null ? ClassicEvaluator.loadWeights(new File(init)) : ClassicEvaluator.defaultWeights();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            long loadStart = System.nanoTime();
+            PositionSet positions = PositionSet.load(Paths.get(file), pool, pool.getParallelism());
+            System.out.printf("Loaded %d positions, %d features in %d ms%n", positions.size,
+                    positions.start[positions.size], (System.nanoTime() - loadStart) / 1_000_000);
+            if (positions.size == 0) throw new IllegalArgumentException("No positions in " + file);
+
+            TexelTuner tuner = new TexelTuner(positions, pool);
+            double[] weights = new double[start.length];
+            for (int i = 0; i < start.length; i++) weights[i] = start[i];
+            if (k <= 0) k = tuner.fitScale(weights);
+            System.out.printf("K = %.4f  Error = %.6f%n", k, tuner.error(weights, k));
+
+            tuner.tune(weights, k, epochs, rate, report, new File(out));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Runs Adam for {@code epochs} full passes, saving the rounded weights every {@code report} epochs and at the end. */
+    void tune(double[] weights, double k, int epochs, double rate, int report, File out) throws IOException, InterruptedException {
+        double[] m = new double[weights.length];
+        double[] v = new double[weights.length];
+        long start = System.nanoTime();
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            double[] gradient = gradient(weights, k);
+            double correction1 = 1 - Math.pow(BETA1, epoch), correction2 = 1 - Math.pow(BETA2, epoch);
+            for (int i = 0; i < weights.length; i++) {
+                if (frozen(i)) continue;
+                m[i] = BETA1 * m[i] + (1 - BETA1) * gradient[i];
+                v[i] = BETA2 * v[i] + (1 - BETA2) * gradient[i] * gradient[i];
+                weights[i] -= rate * (m[i] / correction1) / (Math.sqrt(v[i] / correction2) + EPSILON);
+            }
+            if (epoch % report == 0 || epoch == epochs) {
+                System.out.printf("Epoch %d  Error = %.6f  Time: %d ms%n", epoch, gradient[weights.length],
+                        (System.nanoTime() - start) / 1_000_000);
+                ClassicEvaluator.saveWeights(round(weights), out);
+            }
+        }
+    }
+
+    /** Mean squared error of the predicted results. */
+    double error(double[] weights, double k) throws InterruptedException {
+        return run(() -> IntStream.range(0, blocks).parallel()
+                .mapToDouble(block -> blockError(block, weights, k)).sum()) / positions.size;
+    }
+
+    /** Gradient of the mean squared error, with the error itself in the extra last element. */
+    double[] gradient(double[] weights, double k) throws InterruptedException {
+        int n = weights.length;
+        double[] sum = run(() -> IntStream.range(0, blocks).parallel()
+                .mapToObj(block -> blockGradient(block, weights, k))
+                .reduce((a, b) -> {
+                    for (int i = 0; i <= n; i++) a[i] += b[i];
+                    return a;
+                }).orElseGet(() -> new double[n + 1]));
+        for (int i = 0; i <= n; i++) sum[i] /= positions.size;
+        return sum;
+    }
+
+    /** The K that best fits the given weights, by golden-section search. */
+    double fitScale(double[] weights) throws InterruptedException {
+        double golden = (Math.sqrt(5) - 1) / 2;
+        double low = 0.05, high = 5;
+        double a = high - golden * (high - low), b = low + golden * (high - low);
+        double errorA = error(weights, a), errorB = error(weights, b);
+        while (high - low > 1e-4) {
+            if (errorA < errorB) {
+                high = b;
+                b = a;
+                errorB = errorA;
+                a = high - golden * (high - low);
+                errorA = error(weights, a);
+            } else {
+                low = a;
+                a = b;
+                errorA = errorB;
+                b = low + golden * (high - low);
+                errorB = error(weights, b);
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    private double blockError(int block, double[] weights, double k) {
+        double sum = 0;
+        int end = Math.min(positions.size, (block + 1) * BLOCK_SIZE);
+        for (int p = block * BLOCK_SIZE; p < end; p++) {
+            double diff = positions.result[p] * 0.5 - sigmoid(positions.evaluate(p, weights), k);
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    private double[] blockGradient(int block, double[] weights, double k) {
+        double[] gradient = new double[weights.length + 1];
+        int end = Math.min(positions.size, (block + 1) * BLOCK_SIZE);
+        int[] start = positions.start;
+        short[] feature = positions.feature;
+        byte[] count = positions.count;
+        for (int p = block * BLOCK_SIZE; p < end; p++) {
+            double predicted = sigmoid(positions.evaluate(p, weights), k);
+            double diff = positions.result[p] * 0.5 - predicted;
+            gradient[weights.length] += diff * diff;
+            // d(diff^2)/ds, then spread over the weights the score is made of
+            double slope = -2 * diff * predicted * (1 - predicted) * k * LN10_400;
+            for (int j = start[p]; j < start[p + 1]; j++) gradient[feature[j]] += slope * count[j];
+        }
+        return gradient;
+    }
+
+    private static double sigmoid(double score, double k) {
+        return 1 / (1 + Math.exp(-k * LN10_400 * score));
+    }
+
+    /** The king's material value cancels out of every position, so it keeps its value. */
+    private static boolean frozen(int weight) {
+        return weight == ClassicEvaluator.MATERIAL + 5;
+    }
+
+    private static int[] round(double[] weights) {
+        int[] rounded = new int[weights.length];
+        for (int i = 0; i < weights.length; i++) rounded[i] = (int) Math.round(weights[i]);
+        return rounded;
+    }
+
+    private <T> T run(Callable<T> task) throws InterruptedException {
+        try {
+            return pool.submit(task).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
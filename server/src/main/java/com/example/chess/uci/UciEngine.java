@@ -0,0 +1,317 @@
+package com.example.chess.uci;
+
+import com.example.chess.ChessGame;
+import com.example.chess.Move;
+import com.example.chess.engine.CancellationToken;
+import com.example.chess.engine.ClassicEvaluator;
+import com.example.chess.engine.Search;
+import com.example.chess.engine.SearchLimits;
+import com.example.chess.engine.TimeManager;
+import com.example.chess.nnue.NnueEvaluator;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * UCI front-end for {@link Search}. Commands are read on the main thread while the search runs
+ * on its own thread, so "stop", "ponderhit" and "isready" are answered immediately.
+ */
+public class UciEngine {
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_MULTI_PV = 64;
+    private static final int MAX_MOVE_OVERHEAD_MS = 5000;
+
+    private final PrintStream out;
+    private final Search search = new Search();
+    private final Object lock = new Object();
+    private ChessGame position = new ChessGame();
+    private Thread searchThread;
+    // Made by each go before its thread starts, so that a stop or ponderhit right after it is kept
+    private CancellationToken searchToken = CancellationToken.NONE;
+    private SearchLimits searchLimits = new SearchLimits();
+    private int multiPv = 1;
+    private int[] classicWeights = ClassicEvaluator.defaultWeights();
+    private boolean usingNetwork;
+
+    // Guarded by lock: an infinite or pondering search holds its bestmove until told otherwise
+    private boolean holdBestMove;
+
+    public UciEngine(PrintStream out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        PrintStream out = new PrintStream(new BufferedOutputStream(System.out), false, "US-ASCII");
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII));
+        new UciEngine(out).run(in);
+    }
+
+    public void run(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line.trim())) break;
+        }
+        stopSearch();
+    }
+
+    /** Handles one command line. Returns false on "quit". */
+    boolean handle(String line) {
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "uci":
+                send("id name Chess");
+                send("id author com.example.chess");
+                send("option name Hash type spin default 16 min 1 max " + MAX_HASH_MB);
+                send("option name Threads type spin default 1 min 1 max " + Runtime.getRuntime().availableProcessors());
+                send("option name Ponder type check default false");
+                send("option name MultiPV type spin default 1 min 1 max " + MAX_MULTI_PV);
+                send("option name EvalFile type string default <empty>");
+                send("option name WeightsFile type string default <empty>");
+                send("option name MoveOverhead type spin default " + TimeManager.DEFAULT_MOVE_OVERHEAD_MS
+                        + " min 0 max " + MAX_MOVE_OVERHEAD_MS);
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "setoption":
+                stopSearch();
+                setOption(tokens);
+                break;
+            case "ucinewgame":
+                stopSearch();
+                search.clear();
+                position = new ChessGame();
+                break;
+            case "position":
+                stopSearch();
+                setPosition(tokens);
+                break;
+            case "go":
+                stopSearch();
+                go(tokens);
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            case "ponderhit":
+                searchLimits.ponderHit();
+                synchronized (lock) {
+                    holdBestMove = false;
+                    lock.notifyAll();
+                }
+                break;
+            case "quit":
+                return false;
+            default:
+                // Unknown commands are ignored, as the protocol requires
+                break;
+        }
+        return true;
+    }
+
+    private void setOption(String[] tokens) {
+        String name = null, value = null;
+        for (int i = 1; i < tokens.length; i++) {
+            if (tokens[i].equals("name") && i + 1 < tokens.length) name = tokens[i + 1];
+            if (tokens[i].equals("value") && i + 1 < tokens.length) {
+                // The rest of the line, as file names may contain spaces
+                value = String.join(" ", Arrays.copyOfRange(tokens, i + 1, tokens.length));
+                break;
+            }
+        }
+        if (name == null || value == null) return;
+
+        try {
+            if (name.equalsIgnoreCase("Hash")) {
+                search.setHashSize(Math.max(1, Math.min(MAX_HASH_MB, Integer.parseInt(value))));
+            } else if (name.equalsIgnoreCase("Threads")) {
+                search.setThreads(Math.max(1, Integer.parseInt(value)));
+            } else if (name.equalsIgnoreCase("MultiPV")) {
+                multiPv = Math.max(1, Math.min(MAX_MULTI_PV, Integer.parseInt(value)));
+            } else if (name.equalsIgnoreCase("MoveOverhead")) {
+                search.setMoveOverhead(Math.max(0, Math.min(MAX_MOVE_OVERHEAD_MS, Integer.parseInt(value))));
+            } else if (name.equalsIgnoreCase("EvalFile")) {
+                setEvalFile(value);
+            } else if (name.equalsIgnoreCase("WeightsFile")) {
+                setWeightsFile(value);
+            }
+        } catch (NumberFormatException e) {
+            send("info string bad value for " + name + ": " + value);
+        }
+    }
+
+    private void setEvalFile(String file) {
+        if (file.isEmpty() || file.equals("<empty>")) {
+            usingNetwork = false;
+            search.setEvaluator(new ClassicEvaluator(classicWeights));
+            return;
+        }
+        try {
+            NnueEvaluator evaluator = NnueEvaluator.load(Paths.get(file));
+            search.setEvaluator(evaluator);
+            usingNetwork = true;
+            send("info string loaded network " + file + " with " + evaluator.getNetwork().getHiddenSize()
+                    + " hidden units, " + (evaluator.isVectorized() ? "vector" : "scalar") + " inference");
+        } catch (IOException e) {
+            send("info string cannot load network: " + e.getMessage());
+        }
+    }
+
+    /** Weights for the classic evaluator, used whenever no network is loaded. */
+    private void setWeightsFile(String file) {
+        if (file.isEmpty() || file.equals("<empty>")) {
+            classicWeights = ClassicEvaluator.defaultWeights();
+        } else {
+            try {
+                classicWeights = ClassicEvaluator.loadWeights(new File(file));
+                send("info string loaded weights " + file);
+            } catch (IOException e) {
+                send("info string cannot load weights: " + e.getMessage());
+                return;
+            }
+        }
+        if (!usingNetwork) search.setEvaluator(new ClassicEvaluator(classicWeights));
+    }
+
+    private void setPosition(String[] tokens) {
+        int i = 1;
+        ChessGame game;
+        if (tokens.length > 1 && tokens[1].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (i = 2; i < tokens.length && !tokens[i].equals("moves"); i++) {
+                fen.append(tokens[i]).append(' ');
+            }
+            try {
+                game = ChessGame.fromFen(fen.toString());
+            } catch (IllegalArgumentException e) {
+                send("info string " + e.getMessage());
+                return;
+            }
+        } else {
+            game = new ChessGame();
+            i = 2;
+        }
+
+        if (i < tokens.length && tokens[i].equals("moves")) {
+            for (i++; i < tokens.length; i++) {
+                try {
+                    if (!game.makeMove(Move.parse(tokens[i]))) throw new IllegalArgumentException("Illegal move: " + tokens[i]);
+                } catch (IllegalArgumentException e) {
+                    send("info string " + e.getMessage());
+                    break;
+                }
+            }
+        }
+        position = game;
+    }
+
+    private void go(String[] tokens) {
+        SearchLimits limits = new SearchLimits();
+        limits.multiPv = multiPv;
+        for (int i = 1; i < tokens.length; i++) {
+            String value = i + 1 < tokens.length ? tokens[i + 1] : "0";
+            try {
+                switch (tokens[i]) {
+                    case "infinite": limits.infinite = true; break;
+                    case "ponder": limits.ponder = true; break;
+                    case "depth": limits.depth = Math.min(Search.MAX_PLY, Integer.parseInt(value)); i++; break;
+                    case "nodes": limits.nodes = Long.parseLong(value); i++; break;
+                    case "movetime": limits.moveTimeMs = Long.parseLong(value); i++; break;
+                    case "wtime": limits.whiteTimeMs = Long.parseLong(value); i++; break;
+                    case "btime": limits.blackTimeMs = Long.parseLong(value); i++; break;
+                    case "winc": limits.whiteIncrementMs = Long.parseLong(value); i++; break;
+                    case "binc": limits.blackIncrementMs = Long.parseLong(value); i++; break;
+                    case "movestogo": limits.movesToGo = Integer.parseInt(value); i++; break;
+                    default: break;
+                }
+            } catch (NumberFormatException e) {
+                send("info string bad value for " + tokens[i] + ": " + value);
+            }
+        }
+
+        ChessGame root = position.copy();
+        CancellationToken token = CancellationToken.create();
+        searchToken = token;
+        searchLimits = limits;
+        synchronized (lock) {
+            holdBestMove = limits.infinite || limits.ponder;
+        }
+        searchThread = new Thread(() -> runSearch(root, limits, token), "uci-search");
+        searchThread.start();
+    }
+
+    private void runSearch(ChessGame root, SearchLimits limits, CancellationToken token) {
+        int[][] lastPv = {new int[0]};
+        int best = search.search(root, limits, (depth, line, score, nodes, elapsedMs, pv) -> {
+            if (line == 1) lastPv[0] = pv;
+            send(infoLine(depth, line, score, nodes, elapsedMs, pv));
+        }, token);
+
+        synchronized (lock) {
+            while (holdBestMove) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+
+        if (best == 0) {
+            send("bestmove 0000");
+        } else if (lastPv[0].length > 1 && lastPv[0][0] == best) {
+            send("bestmove " + Move.unpack(best) + " ponder " + Move.unpack(lastPv[0][1]));
+        } else {
+            send("bestmove " + Move.unpack(best));
+        }
+    }
+
+    private void stopSearch() {
+        if (searchThread == null) return;
+        searchToken.cancel();
+        search.stop();
+        synchronized (lock) {
+            holdBestMove = false;
+            lock.notifyAll();
+        }
+        try {
+            searchThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        searchThread = null;
+    }
+
+    private String infoLine(int depth, int line, int score, long nodes, long elapsedMs, int[] pv) {
+        StringBuilder sb = new StringBuilder("info depth ").append(depth);
+        if (multiPv > 1) sb.append(" multipv ").append(line);
+        if (Search.isMateScore(score)) {
+            int plies = Search.MATE - Math.abs(score);
+            sb.append(" score mate ").append(score > 0 ? (plies + 1) / 2 : -(plies / 2));
+        } else {
+            sb.append(" score cp ").append(score);
+        }
+        sb.append(" nodes ").append(nodes)
+                .append(" nps ").append(nodes * 1000 / Math.max(1, elapsedMs))
+                .append(" time ").append(elapsedMs)
+                .append(" hashfull ").append(search.getHashFull())
+                .append(" pv");
+        for (int move : pv) sb.append(' ').append(Move.unpack(move));
+        return sb.toString();
+    }
+
+    private void send(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+}
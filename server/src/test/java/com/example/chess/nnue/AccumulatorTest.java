@@ -0,0 +1,142 @@
+package com.example.chess.nnue;
+
+import com.example.chess.ChessGame;
+import com.example.chess.Move;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Runs with the Vector API module, as the server's launchers do. */
+public class AccumulatorTest {
+    // Not a multiple of any vector width, so the scalar tails are exercised too
+    private static final int HIDDEN = 40;
+
+    private static final String[] FENS = {
+            // Castling both ways for both sides, captures, en passant after double pushes
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            // En passant that uncovers the king
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            // Promotions, with and without capture, for both sides
+            "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1",
+    };
+
+    private final Network network = randomNetwork(new Random(1));
+
+    @Test
+    public void incrementalMatchesRefreshWithScalarKernels() {
+        checkAllFens(new ScalarKernels());
+    }
+
+    @Test
+    public void incrementalMatchesRefreshWithVectorKernels() {
+        checkAllFens(new VectorKernels());
+    }
+
+    @Test
+    public void editedBoardIsRebuilt() {
+        ChessGame game = new ChessGame();
+        Accumulator accumulator = new Accumulator(network, new ScalarKernels());
+        game.setMoveObserver(accumulator);
+        accumulator.reset();
+        assertTrue(game.makeMove(Move.parse("e2e4")));
+        accumulator.evaluate(game);
+        game.setPieceAt(0, 3, null);
+        assertEquals(refreshed(game, new ScalarKernels()), accumulator.evaluate(game));
+        game.undoMove();
+        assertEquals(refreshed(game, new ScalarKernels()), accumulator.evaluate(game));
+    }
+
+    @Test
+    public void vectorKernelsMatchScalarKernels() {
+        Random random = new Random(2);
+        Kernels scalar = new ScalarKernels(), vector = new VectorKernels();
+        for (int n : new int[] {1, 7, 8, 16, 33, 64, 100, 257}) {
+            short[] weights = randomShorts(random, 4 * n, 2000);
+            short[] acc = randomShorts(random, 2 * n, 2000);
+            short[] a = acc.clone(), b = acc.clone();
+
+            scalar.addSub(a, n, a, 0, weights, n, 2 * n, n);
+            vector.addSub(b, n, b, 0, weights, n, 2 * n, n);
+            assertArrayEquals("addSub " + n, a, b);
+            scalar.add(a, 0, weights, 3 * n, n);
+            vector.add(b, 0, weights, 3 * n, n);
+            assertArrayEquals("add " + n, a, b);
+            scalar.sub(a, n, weights, 0, n);
+            vector.sub(b, n, weights, 0, n);
+            assertArrayEquals("sub " + n, a, b);
+
+            assertEquals("forward " + n, scalar.forward(a, 0, a, n, weights, n, Network.QA),
+                    vector.forward(b, 0, b, n, weights, n, Network.QA));
+        }
+    }
+
+    private void checkAllFens(Kernels kernels) {
+        int[] special = new int[3];
+        for (String fen : FENS) {
+            ChessGame game = ChessGame.fromFen(fen);
+            Accumulator accumulator = new Accumulator(network, kernels);
+            game.setMoveObserver(accumulator);
+            accumulator.reset();
+            walk(game, accumulator, kernels, 3, special);
+            assertEquals("position must be restored", fen, game.toFen());
+        }
+        assertTrue("no captures", special[0] > 0);
+        assertTrue("no en passant or castling", special[1] > 0);
+        assertTrue("no promotions", special[2] > 0);
+    }
+
+    /** Plays every line {@code depth} plies deep, comparing with a full refresh at each node, before and after undo. */
+    private void walk(ChessGame game, Accumulator accumulator, Kernels kernels, int depth, int[] special) {
+        int expected = refreshed(game, kernels);
+        assertEquals(game.toFen(), expected, accumulator.evaluate(game));
+        if (depth == 0) return;
+
+        int[] moves = new int[256];
+        int count = game.generateMoves(moves, false);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = Move.packedFrom(move), to = Move.packedTo(move);
+            byte piece = game.getPieceCode(from);
+            boolean capture = game.getPieceCode(to) != ChessGame.EMPTY;
+            boolean pawnSideways = (piece & 7) == ChessGame.PAWN && (from & 7) != (to & 7);
+            boolean kingJump = (piece & 7) == ChessGame.KING && Math.abs(to - from) == 2;
+            if (!game.doMove(move)) continue;
+            if (capture) special[0]++;
+            if ((pawnSideways && !capture) || kingJump) special[1]++;
+            if (Move.packedPromotion(move) != 0) special[2]++;
+            walk(game, accumulator, kernels, depth - 1, special);
+            game.undoMove();
+            assertEquals(game.toFen(), expected, accumulator.evaluate(game));
+        }
+    }
+
+    private int refreshed(ChessGame game, Kernels kernels) {
+        Accumulator fresh = new Accumulator(network, kernels);
+        fresh.reset();
+        return fresh.evaluate(game);
+    }
+
+    /**
+     * Activations stay inside the clamp, and every output weight is worth at least a centipawn,
+     * so a hidden layer that is off by one anywhere changes the output.
+     */
+    private static Network randomNetwork(Random random) {
+        short[] biases = randomShorts(random, HIDDEN, 10);
+        for (int i = 0; i < HIDDEN; i++) biases[i] += Network.QA / 2;
+        short[] outputWeights = new short[2 * HIDDEN];
+        for (int i = 0; i < outputWeights.length; i++) {
+            outputWeights[i] = (short) ((50 + random.nextInt(2000)) * (random.nextBoolean() ? 1 : -1));
+        }
+        return new Network(HIDDEN, randomShorts(random, Network.INPUTS * HIDDEN, 3), biases, outputWeights,
+                (short) random.nextInt(1000));
+    }
+
+    private static short[] randomShorts(Random random, int length, int bound) {
+        short[] values = new short[length];
+        for (int i = 0; i < length; i++) values[i] = (short) (random.nextInt(2 * bound + 1) - bound);
+        return values;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.chess.server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class GameServerTest {
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private GameServer server;
+    private Thread serverThread;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new GameServer(0, 2);
+        serverThread = new Thread(server, "game-server");
+        serverThread.start();
+    }
+
+    @After
+    public void stopServer() throws IOException, InterruptedException {
+        server.close();
+        serverThread.join(10_000);
+    }
+
+    @Test(timeout = 30_000)
+    public void playersSeeEachOthersMoves() throws IOException {
+        try (Client white = new Client(); Client black = new Client()) {
+            long id = white.newGame();
+            assertEquals("STATE " + id + " 0 play " + START, white.read());
+            black.send("JOIN " + id);
+            assertEquals("STATE " + id + " 0 play " + START, black.read());
+
+            white.send("MOVE " + id + " e2e4");
+            String afterE4 = "STATE " + id + " 1 play rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1";
+            assertEquals(afterE4, white.read());
+            assertEquals(afterE4, black.read());
+
+            black.send("MOVE " + id + " e7e5");
+            String afterE5 = "STATE " + id + " 2 play rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2";
+            assertEquals(afterE5, white.read());
+            assertEquals(afterE5, black.read());
+
+            // Refusals go to the sender only; the next state shows nothing else was queued for black
+            white.send("MOVE " + id + " e4e5");
+            assertEquals("ERR " + id + " illegal e4e5", white.read());
+            white.send("MOVE " + id + " g1f3");
+            String afterNf3 = white.read();
+            assertTrue(afterNf3, afterNf3.startsWith("STATE " + id + " 3 play "));
+            assertEquals(afterNf3, black.read());
+        }
+    }
+
+    @Test(timeout = 30_000)
+    public void unknownGamesAndCommandsAreRefused() throws IOException {
+        try (Client client = new Client()) {
+            client.send("JOIN 99");
+            assertEquals("ERR 99 unknown-game", client.read());
+            client.send("MOVE x e2e4");
+            assertEquals("ERR x unknown-game", client.read());
+            client.send("HELLO");
+            assertEquals("ERR - unknown-command", client.read());
+        }
+    }
+
+    @Test(timeout = 30_000)
+    public void disconnectingLeavesTheGame() throws Exception {
+        Client white = new Client();
+        long id = white.newGame();
+        white.read();
+        try (Client black = new Client()) {
+            black.send("JOIN " + id);
+            black.read();
+            white.close();
+
+            // The game lives on for black, and ends once black goes too
+            black.send("MOVE " + id + " e2e4");
+            assertTrue(black.read().startsWith("STATE " + id + " 1 "));
+            assertEquals(1, server.getGameCount());
+        }
+        awaitGameCount(0);
+    }
+
+    @Test(timeout = 60_000)
+    public void joinRacingADisconnectLeavesNoSubscriber() throws Exception {
+        Client owner = new Client();
+        long id = owner.newGame();
+        owner.read();
+        for (int i = 0; i < 200; i++) {
+            // Gone before the join has been handled
+            Client client = new Client();
+            client.send("JOIN " + id);
+            client.close();
+        }
+        // A join that got in before its disconnect must be undone, or the game outlives its owner
+        owner.send("LEAVE " + id);
+        awaitGameCount(0);
+        owner.close();
+    }
+
+    @Test(timeout = 60_000)
+    public void newGameOfAClosedConnectionIsDropped() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            Client client = new Client();
+            client.send("NEW");
+            client.close();
+        }
+        awaitGameCount(0);
+    }
+
+    @Test(timeout = 60_000)
+    public void clientThatDoesNotReadIsDisconnected() throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(4096);
+            socket.connect(new InetSocketAddress("127.0.0.1", server.getPort()));
+            OutputStream out = socket.getOutputStream();
+            byte[] line = "MOVE 1 x\n".getBytes(StandardCharsets.US_ASCII);
+            // Each command is answered; far more answers than the socket buffers and the queue hold
+            for (int i = 0; i < 2_000_000; i++) {
+                try {
+                    out.write(line);
+                } catch (SocketException e) {
+                    return;
+                }
+            }
+            fail("still connected");
+        }
+    }
+
+    private void awaitGameCount(int count) throws InterruptedException {
+        while (server.getGameCount() != count) Thread.sleep(10);
+    }
+
+    private final class Client implements AutoCloseable {
+        final Socket socket;
+        final BufferedReader in;
+        final PrintWriter out;
+
+        Client() throws IOException {
+            socket = new Socket();
+            socket.connect(new InetSocketAddress("127.0.0.1", server.getPort()));
+            socket.setSoTimeout(10_000);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = new PrintWriter(socket.getOutputStream(), true);
+        }
+
+        void send(String line) {
+            out.print(line + "\n");
+            out.flush();
+        }
+
+        String read() throws IOException {
+            String line = in.readLine();
+            assertNotNull("connection closed", line);
+            return line;
+        }
+
+        long newGame() throws IOException {
+            send("NEW");
+            String line = read();
+            assertTrue(line, line.startsWith("GAME "));
+            return Long.parseLong(line.substring(5));
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
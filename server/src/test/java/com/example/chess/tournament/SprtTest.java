@@ -0,0 +1,77 @@
+package com.example.chess.tournament;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SprtTest {
+    @Test
+    public void llrOfKnownResults() {
+        // 60/20/20: score 0.7, variance 0.16; H1 at +10 Elo expects 0.514387
+        // 100 * 0.014387 * (1.4 - 1.014387) / (2 * 0.16) = 1.7337
+        assertEquals(1.7337133, Sprt.llr(60, 20, 20, 0, 10), 1e-6);
+        assertEquals(1.7573264, Sprt.llr(1200, 1600, 1100, 0, 5), 1e-6);
+        assertEquals(-3.1282626, Sprt.llr(1100, 1600, 1200, 0, 5), 1e-6);
+        // An even match is evidence against a stronger engine
+        assertEquals(-3.7377363, Sprt.llr(5000, 9000, 5000, 0, 5), 1e-6);
+    }
+
+    @Test
+    public void llrIsZeroHalfwayBetweenTheHypotheses() {
+        // Scoring exactly 50% lies halfway between -5 and +5 Elo
+        assertEquals(0, Sprt.llr(300, 400, 300, -5, 5), 1e-12);
+    }
+
+    @Test
+    public void swappingTheHypothesesNegatesTheLlr() {
+        double llr = Sprt.llr(530, 900, 470, 0, 5);
+        assertTrue(llr > 0);
+        assertEquals(-llr, Sprt.llr(530, 900, 470, 5, 0), 1e-12);
+    }
+
+    @Test
+    public void llrGrowsWithTheNumberOfGames() {
+        // Same proportions, ten times the games: ten times the evidence
+        assertEquals(10 * Sprt.llr(53, 90, 47, 0, 5), Sprt.llr(530, 900, 470, 0, 5), 1e-9);
+    }
+
+    @Test
+    public void llrWithoutEvidence() {
+        assertEquals(0, Sprt.llr(0, 0, 0, 0, 5), 0);
+        // All draws: no variance to judge by
+        assertEquals(0, Sprt.llr(0, 50, 0, 0, 5), 0);
+    }
+
+    @Test
+    public void boundsFollowFromAlphaAndBeta() {
+        // Wald's bounds: log(beta / (1 - alpha)) and log((1 - beta) / alpha)
+        assertEquals(-Math.log(19), Sprt.lowerBound(0.05, 0.05), 1e-12);
+        assertEquals(Math.log(19), Sprt.upperBound(0.05, 0.05), 1e-12);
+        assertEquals(-2.2512918, Sprt.lowerBound(0.05, 0.1), 1e-6);
+        assertEquals(2.8903718, Sprt.upperBound(0.05, 0.1), 1e-6);
+        // Fewer false positives allowed: both bounds move outwards, the upper one most
+        assertTrue(Sprt.upperBound(0.01, 0.1) > Sprt.upperBound(0.05, 0.1));
+        assertTrue(Sprt.lowerBound(0.01, 0.1) < Sprt.lowerBound(0.05, 0.1));
+    }
+
+    @Test
+    public void eloAndExpectedScoreAreInverse() {
+        assertEquals(190.8485019, Sprt.elo(0.75), 1e-6);
+        assertEquals(0, Sprt.elo(0.5), 1e-12);
+        for (double elo : new double[] {-400, -35, 0, 10, 250}) {
+            assertEquals(elo, Sprt.elo(Sprt.expectedScore(elo)), 1e-9);
+        }
+        assertEquals(Double.POSITIVE_INFINITY, Sprt.elo(1), 0);
+        assertEquals(Double.NEGATIVE_INFINITY, Sprt.elo(0), 0);
+    }
+
+    @Test
+    public void eloErrorShrinksWithMoreGames() {
+        double few = Sprt.eloError(40, 20, 40);
+        double many = Sprt.eloError(4000, 2000, 4000);
+        assertTrue(few > many);
+        // Standard error falls with the square root of the games
+        assertEquals(10, few / many, 0.5);
+        assertEquals(Double.POSITIVE_INFINITY, Sprt.eloError(0, 0, 0), 0);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.chess.tuner;
+
+import com.example.chess.ChessGame;
+import com.example.chess.engine.ClassicEvaluator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class PositionSetTest {
+    private static final int PAWN = 0, QUEEN = 4;
+
+    private Path file;
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("positions", ".epd");
+        pool = new ForkJoinPool(2);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        pool.shutdownNow();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void blackPiecesAreMirrored() throws Exception {
+        // Black queen on d4 uses white's d5 entry; the kings on e1 and e8 cancel out completely
+        PositionSet set = load("4k3/8/8/8/3q4/8/8/4K3 w - - 0 1 0-1");
+        Map<Integer, Integer> expected = new HashMap<>();
+        expected.put(ClassicEvaluator.MATERIAL + QUEEN, -1);
+        expected.put(pieceSquare(QUEEN, square("d5")), -1);
+        assertEquals(expected, features(set, 0));
+        assertEquals(0, set.result[0]);
+    }
+
+    @Test
+    public void cancellingCountsAreDropped() throws Exception {
+        // Pawn material cancels; the pawns stand on different mirrored squares, so those stay
+        PositionSet set = load("4k3/4p3/8/8/8/8/3P4/4K3 w - - 0 1 1-0");
+        Map<Integer, Integer> expected = new HashMap<>();
+        expected.put(pieceSquare(PAWN, square("d2")), 1);
+        expected.put(pieceSquare(PAWN, square("e2")), -1);
+        assertEquals(expected, features(set, 0));
+
+        // Mirror images cancel entirely
+        set = load("4k3/3p4/8/8/8/8/3P4/4K3 w - - 0 1 1/2-1/2");
+        assertTrue(features(set, 0).isEmpty());
+    }
+
+    @Test
+    public void repeatedPiecesAreCounted() throws Exception {
+        PositionSet set = load("4k3/8/8/8/8/8/PPP5/4K3 w - - [1.0]");
+        assertEquals(Integer.valueOf(3), features(set, 0).get(ClassicEvaluator.MATERIAL + PAWN));
+    }
+
+    @Test
+    public void resultFormats() throws Exception {
+        String fen = "4k3/8/8/8/8/8/3P4/4K3 w - -";
+        PositionSet set = load(
+                fen + " 0 1 1-0",
+                fen + " 0 1 0-1",
+                fen + " c9 \"1/2-1/2\";",
+                fen + " [0.5]",
+                fen + " 12 40 [1.0]",
+                fen + " [0.0]",
+                "# a comment",
+                "",
+                fen + " 1/2-1/2");
+        assertEquals(7, set.size);
+        assertArrayEquals(new byte[] {2, 0, 1, 1, 2, 0, 1}, set.result);
+    }
+
+    @Test
+    public void missingResultNamesTheLine() throws Exception {
+        try {
+            load("4k3/8/8/8/8/8/3P4/4K3 w - - 0 1 1-0", "4k3/8/8/8/8/8/3P4/4K3 w - - 0 1");
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Line 2: "));
+        }
+    }
+
+    @Test
+    public void scoresMatchTheEvaluator() throws Exception {
+        String[] fens = {
+                "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3",
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+        };
+        List<String> lines = new ArrayList<>();
+        for (String fen : fens) lines.add(fen + " 1/2-1/2");
+        PositionSet set = load(lines.toArray(new String[0]));
+
+        Random random = new Random(3);
+        int[] weights = new int[ClassicEvaluator.WEIGHT_COUNT];
+        for (int i = 0; i < weights.length; i++) weights[i] = random.nextInt(2001) - 1000;
+        ClassicEvaluator evaluator = new ClassicEvaluator(weights);
+        double[] tuned = Arrays.stream(weights).asDoubleStream().toArray();
+        for (int i = 0; i < fens.length; i++) {
+            // The evaluator scores for the side to move, the set for white; all are white to move
+            assertEquals(fens[i], evaluator.evaluate(ChessGame.fromFen(fens[i])), set.evaluate(i, tuned), 0);
+        }
+    }
+
+    @Test
+    public void chunksStayInFileOrder() throws Exception {
+        // Enough lines for many more chunks than may be in flight at once
+        String fen = "4k3/8/8/8/8/8/3P4/4K3 w - - 0 1 ";
+        String[] labels = {"0-1", "1/2-1/2", "1-0"};
+        int lines = 9 * 16_384 + 5;
+        List<String> text = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) text.add(fen + labels[(i / 7) % 3]);
+        Files.write(file, text, StandardCharsets.UTF_8);
+
+        PositionSet set = PositionSet.load(file, pool, 1);
+        assertEquals(lines, set.size);
+        for (int i = 0; i < lines; i++) assertEquals("line " + (i + 1), (i / 7) % 3, set.result[i]);
+        assertEquals(2 * lines, set.start[lines]);
+    }
+
+    private PositionSet load(String... lines) throws IOException, InterruptedException {
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return PositionSet.load(file, pool, pool.getParallelism());
+    }
+
+    private static Map<Integer, Integer> features(PositionSet set, int position) {
+        Map<Integer, Integer> features = new HashMap<>();
+        for (int j = set.start[position]; j < set.start[position + 1]; j++) {
+            assertNull("feature listed twice", features.put((int) set.feature[j], (int) set.count[j]));
+        }
+        return features;
+    }
+
+    private static int pieceSquare(int type, int square) {
+        return ClassicEvaluator.PIECE_SQUARE + type * 64 + square;
+    }
+
+    /** Board index of a square such as "e4", a8 being 0. */
+    private static int square(String name) {
+        return (8 - (name.charAt(1) - '0')) * 8 + (name.charAt(0) - 'a');
+    }
+}
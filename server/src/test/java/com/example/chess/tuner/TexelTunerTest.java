@@ -0,0 +1,76 @@
+package com.example.chess.tuner;
+
+import com.example.chess.engine.ClassicEvaluator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class TexelTunerTest {
+    private Path file;
+    private ForkJoinPool pool;
+    private TexelTuner tuner;
+
+    @Before
+    public void setUp() throws IOException, InterruptedException {
+        file = Files.createTempFile("positions", ".epd");
+        Files.write(file, Arrays.asList(
+                "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3 1/2-1/2",
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1 1-0",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1 0-1",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8 1-0",
+                "4k3/8/8/8/3q4/8/8/4K3 w - - 0 1 0-1",
+                "4k3/4p3/8/8/8/8/3P4/4K3 w - - 0 1 1/2-1/2"), StandardCharsets.UTF_8);
+        pool = new ForkJoinPool(2);
+        tuner = new TexelTuner(PositionSet.load(file, pool, pool.getParallelism()), pool);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        pool.shutdownNow();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void gradientMatchesFiniteDifferences() throws InterruptedException {
+        double k = 1.2;
+        Random random = new Random(5);
+        double[] weights = Arrays.stream(ClassicEvaluator.defaultWeights()).asDoubleStream().toArray();
+        for (int i = 0; i < weights.length; i++) weights[i] += random.nextGaussian() * 20;
+
+        double[] gradient = tuner.gradient(weights, k);
+        assertEquals(weights.length + 1, gradient.length);
+        assertEquals(tuner.error(weights, k), gradient[weights.length], 1e-12);
+
+        double h = 0.01;
+        int nonZero = 0;
+        for (int i = 0; i < weights.length; i++) {
+            double saved = weights[i];
+            weights[i] = saved + h;
+            double up = tuner.error(weights, k);
+            weights[i] = saved - h;
+            double down = tuner.error(weights, k);
+            weights[i] = saved;
+            double expected = (up - down) / (2 * h);
+            assertEquals("weight " + i, expected, gradient[i], 1e-9 + 1e-4 * Math.abs(expected));
+            if (gradient[i] != 0) nonZero++;
+        }
+        assertTrue("only " + nonZero + " weights moved the error", nonZero > 20);
+    }
+
+    @Test
+    public void zeroScoresPredictDraws() throws InterruptedException {
+        // With a zero score every position predicts a draw, so only the decisive ones count
+        double[] weights = new double[ClassicEvaluator.WEIGHT_COUNT];
+        assertEquals(4 * 0.25 / 6, tuner.error(weights, 1), 1e-12);
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.chess.uci;
+
+import com.example.chess.ChessGame;
+import com.example.chess.Move;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives the engine through its streams, as a GUI would through standard input and output.
+ * Replies are collected line by line as they are printed: a piped stream would fail once the
+ * search thread that wrote to it has ended.
+ */
+public class UciEngineTest {
+    private static final long TIMEOUT_MS = 10_000;
+
+    private PrintStream commands;
+    private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+    private Thread engine;
+
+    @Before
+    public void startEngine() throws IOException {
+        PipedOutputStream toEngine = new PipedOutputStream();
+        BufferedReader in = new BufferedReader(new InputStreamReader(new PipedInputStream(toEngine), StandardCharsets.US_ASCII));
+        commands = new PrintStream(toEngine, true, "US-ASCII");
+
+        PrintStream engineOut = new PrintStream(new OutputStream() {
+            private final StringBuilder line = new StringBuilder();
+
+            @Override
+            public void write(int b) {
+                if (b == '\n') {
+                    replies.add(line.toString());
+                    line.setLength(0);
+                } else if (b != '\r') {
+                    line.append((char) b);
+                }
+            }
+        }, false, "US-ASCII");
+
+        engine = new Thread(() -> {
+            try {
+                new UciEngine(engineOut).run(in);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                engineOut.close();
+            }
+        }, "uci-engine");
+        engine.start();
+    }
+
+    @After
+    public void quit() throws InterruptedException {
+        commands.println("quit");
+        engine.join(TIMEOUT_MS);
+        assertFalse("engine did not quit", engine.isAlive());
+    }
+
+    @Test
+    public void handshake() throws InterruptedException {
+        send("uci");
+        assertTrue(expect("id name ").startsWith("id name "));
+        expect("uciok");
+        send("isready");
+        expect("readyok");
+    }
+
+    @Test
+    public void searchesThePositionAfterTheMoves() throws InterruptedException {
+        send("position startpos moves e2e4 e7e5 g1f3");
+        send("go depth 3");
+        assertLegal(new String[] {"e2e4", "e7e5", "g1f3"}, bestMove());
+
+        send("position fen 4k3/8/8/8/8/8/8/R3K3 w Q - 0 1 moves e1c1 e8f8");
+        send("go depth 2");
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1");
+        game.makeMove(Move.parse("e1c1"));
+        game.makeMove(Move.parse("e8f8"));
+        assertTrue(game.getLegalMoves().contains(Move.parse(bestMove())));
+    }
+
+    @Test
+    public void goDepthReportsEveryIteration() throws InterruptedException {
+        send("position startpos");
+        send("go depth 4");
+        for (int depth = 1; depth <= 4; depth++) assertTrue(expect("info depth " + depth + " ").contains(" pv "));
+        assertLegal(new String[0], bestMove());
+    }
+
+    @Test
+    public void goMovetimeAnswersInTime() throws InterruptedException {
+        send("position startpos");
+        long start = System.nanoTime();
+        send("go movetime 200");
+        assertLegal(new String[0], bestMove());
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 2000);
+    }
+
+    // A lost stop used to leave the search running and the engine hung in join
+    @Test(timeout = 60_000)
+    public void stopRightAfterGoInfinite() throws InterruptedException {
+        send("position startpos");
+        for (int i = 0; i < 50; i++) {
+            send("go infinite");
+            send("stop");
+            assertLegal(new String[0], bestMove());
+        }
+        send("isready");
+        expect("readyok");
+    }
+
+    @Test
+    public void infiniteSearchWaitsForStop() throws InterruptedException {
+        send("position startpos");
+        send("go infinite depth 2");
+        assertNull(poll("bestmove", 300));
+        send("stop");
+        bestMove();
+    }
+
+    @Test
+    public void ponderhitStartsTheClock() throws InterruptedException {
+        send("position startpos moves e2e4");
+        send("go ponder wtime 1000 btime 1000");
+        // On the opponent's time the clock does not run out
+        assertNull(poll("bestmove", 1500));
+        send("ponderhit");
+        assertLegal(new String[] {"e2e4"}, bestMove());
+    }
+
+    @Test(timeout = 60_000)
+    public void ponderhitRightAfterGo() throws InterruptedException {
+        send("position startpos");
+        for (int i = 0; i < 20; i++) {
+            send("go ponder wtime 200 btime 200");
+            send("ponderhit");
+            assertLegal(new String[0], bestMove());
+        }
+    }
+
+    private void send(String command) {
+        commands.println(command);
+    }
+
+    private String bestMove() throws InterruptedException {
+        String line = expect("bestmove ");
+        return line.split(" ")[1];
+    }
+
+    /** The next reply starting with {@code prefix}, skipping others; fails after the timeout. */
+    private String expect(String prefix) throws InterruptedException {
+        String line = poll(prefix, TIMEOUT_MS);
+        assertNotNull("no '" + prefix + "' within " + TIMEOUT_MS + " ms", line);
+        return line;
+    }
+
+    private String poll(String prefix, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000;
+        while (true) {
+            long left = deadline - System.nanoTime();
+            String line = left > 0 ? replies.poll(left, TimeUnit.NANOSECONDS) : null;
+            if (line == null || line.startsWith(prefix)) return line;
+        }
+    }
+
+    private static void assertLegal(String[] moves, String best) {
+        ChessGame game = new ChessGame();
+        for (String move : moves) game.makeMove(Move.parse(move));
+        assertTrue(best, game.getLegalMoves().contains(Move.parse(best)));
+    }
+}
@@ -21,4 +21,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "chess"
 include(":app")
+include(":core")
+include(":server")
  
\ No newline at end of file